@@ -0,0 +1,74 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import de.md5lukas.i18n.language.KeyRegistry;
+import de.md5lukas.i18n.language.Language;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates languages of a realistic size for the benchmarks
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class BenchmarkLanguages {
+
+    /**
+     * The language keys of the generated languages, the first one is the default language
+     */
+    public static final String[] LANGUAGE_KEYS = {"en", "de", "fr", "es", "pt", "nl", "pl", "ru"};
+
+    private BenchmarkLanguages() {
+    }
+
+    /**
+     * Generates one language for every language key with the amount of generated keys plus the additional translations
+     *
+     * @param keys                The amount of generated keys of every language
+     * @param translations        Additional translations every language contains, prefixed with the language key
+     * @return The generated languages
+     * @since 1.0.0
+     */
+    public static List<Language> create(int keys, Map<String, String> translations) {
+        List<Language> languages = new ArrayList<>(LANGUAGE_KEYS.length);
+        KeyRegistry keyRegistry = new KeyRegistry();
+        for (String languageKey : LANGUAGE_KEYS) {
+            Map<String, String> values = new HashMap<>();
+            for (int index = 0; index < keys; index++)
+                values.put(key(index), "&7[" + languageKey + "] Message number " + index + " for %player%");
+            translations.forEach((key, value) -> values.put(key, "[" + languageKey + "] " + value));
+            languages.add(new Language(languageKey, values, false, keyRegistry));
+        }
+        return languages;
+    }
+
+    /**
+     * @param index The index of the generated key
+     * @return The generated key
+     * @since 1.0.0
+     */
+    public static String key(int index) {
+        return "benchmark.messages.message" + index;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.translations.Translation;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcasts a message to the players of the {@link StubServer}, spread evenly over the languages, and compares it with sending
+ * the message to every player on its own
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int players;
+
+    @Param({"1", "4", "8"})
+    public int locales;
+
+    private Translation translation;
+    private List<Player> onlinePlayers;
+
+    @Setup
+    public void setup() {
+        StubServer.install();
+        LanguageStorage languageStorage = new LanguageStorage(BenchmarkLanguages.LANGUAGE_KEYS[0]);
+        languageStorage.setLanguages(BenchmarkLanguages.create(100,
+                Collections.singletonMap("broadcast", "&6The server restarts in &c%time% &6minutes")));
+        translation = new Translation(languageStorage, "broadcast");
+
+        onlinePlayers = new ArrayList<>(players);
+        for (int index = 0; index < players; index++)
+            onlinePlayers.add(StubServer.player(BenchmarkLanguages.LANGUAGE_KEYS[index % locales]));
+    }
+
+    @Benchmark
+    public void sendIndividually() {
+        for (Player player : onlinePlayers)
+            translation.send(player, "%time%", "5");
+    }
+
+    @Benchmark
+    public void broadcast() {
+        translation.broadcast(onlinePlayers, "%time%", "5");
+    }
+
+    @Benchmark
+    public void broadcastWithoutReplacements() {
+        translation.broadcast(onlinePlayers);
+    }
+
+    @Benchmark
+    public void sendComponentsIndividually() {
+        for (Player player : onlinePlayers)
+            translation.sendComponents(player, "%time%", "5");
+    }
+
+    @Benchmark
+    public void broadcastComponents() {
+        translation.broadcastComponents(onlinePlayers, "%time%", "5");
+    }
+
+    @Benchmark
+    public void broadcastComponentsWithoutReplacements() {
+        translation.broadcastComponents(onlinePlayers);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.translations.Translation;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gets a placeholder-free message that has already been rendered, once for a language that has already been resolved and once
+ * for a player, so the cost of the cache itself can be told apart from resolving the language of the player.
+ * <br><br>
+ * Neither should allocate at all, which the GC profiler enabled by {@link BenchmarkRunner} reports as the normalized allocation
+ * rate.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachedRenderBenchmark {
+
+    private Translation translation;
+    private Language language;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        StubServer.install();
+        LanguageStorage languageStorage = new LanguageStorage(BenchmarkLanguages.LANGUAGE_KEYS[0]);
+        languageStorage.setLanguages(BenchmarkLanguages.create(100, Collections.singletonMap("welcome", "&6Welcome on the server")));
+        translation = new Translation(languageStorage, "welcome");
+        language = languageStorage.getLanguage("de_DE");
+        player = StubServer.player("de_DE");
+        translation.render(language);
+    }
+
+    @Benchmark
+    public String renderForLanguage() {
+        return translation.render(language);
+    }
+
+    @Benchmark
+    public String renderForPlayer() {
+        return translation.getAsString(player);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.translations.ItemTranslation;
+import de.md5lukas.i18n.translations.ItemTranslationTAR;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates translated item stacks with and without replacements, using the item factory of the {@link StubServer}
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemTranslationBenchmark {
+
+    private ItemTranslation itemTranslation;
+    private ItemTranslationTAR targetsAndReplacements;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        StubServer.install();
+        Map<String, String> translations = new HashMap<>();
+        translations.put("benchmark.item.displayName", "&6Teleporter to %target%");
+        translations.put("benchmark.item.description", "&7Teleports you to %target%\n&7Costs &e%cost% &7coins\n\n&8Left click to use"
+                + "\n&8Right click to edit");
+
+        LanguageStorage languageStorage = new LanguageStorage(BenchmarkLanguages.LANGUAGE_KEYS[0]);
+        languageStorage.setLanguages(BenchmarkLanguages.create(100, translations));
+        itemTranslation = new ItemTranslation(languageStorage, () -> Material.STONE, "benchmark.item");
+        targetsAndReplacements = new ItemTranslationTAR().setDisplayName("%target%", "Spawn")
+                .setDescription("%target%", "Spawn", "%cost%", "250");
+        player = StubServer.player("de_DE");
+    }
+
+    @Benchmark
+    public ItemStack getStack() {
+        return itemTranslation.getStack(player);
+    }
+
+    @Benchmark
+    public ItemStack getStackWithReplacements() {
+        return itemTranslation.getStack(player, targetsAndReplacements);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.MessageTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up translations by their key and compiled templates by the id of their key. The lookup in a plain map of the raw
+ * translations, like languages used to store them, serves as the baseline.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LanguageBenchmark {
+
+    @Param({"100", "5000"})
+    public int keys;
+
+    private Language language;
+    private Map<String, String> baseline;
+    private String key;
+    private int keyId;
+
+    @Setup
+    public void setup() {
+        language = BenchmarkLanguages.create(keys, Collections.emptyMap()).get(0);
+        key = BenchmarkLanguages.key(keys / 2);
+        keyId = language.getKeyRegistry().getId(key);
+
+        baseline = new HashMap<>();
+        for (int index = 0; index < keys; index++)
+            baseline.put(BenchmarkLanguages.key(index), language.getTranslation(BenchmarkLanguages.key(index)));
+    }
+
+    @Benchmark
+    public String getTranslationFromMap() {
+        return baseline.get(key);
+    }
+
+    @Benchmark
+    public String getTranslation() {
+        return language.getTranslation(key);
+    }
+
+    @Benchmark
+    public MessageTemplate getTemplateByKey() {
+        return language.getTemplate(key);
+    }
+
+    @Benchmark
+    public MessageTemplate getTemplateById() {
+        return language.getTemplate(keyId);
+    }
+}
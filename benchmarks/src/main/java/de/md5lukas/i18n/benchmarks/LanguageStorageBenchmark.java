@@ -0,0 +1,79 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageListener;
+import de.md5lukas.i18n.language.LanguageStorage;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the language of a locale string and of a player
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LanguageStorageBenchmark {
+
+    @Param({"false", "true"})
+    public boolean playerCache;
+
+    private LanguageStorage languageStorage;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        StubServer.install();
+        languageStorage = new LanguageStorage(BenchmarkLanguages.LANGUAGE_KEYS[0]);
+        languageStorage.setLanguages(BenchmarkLanguages.create(100, Collections.emptyMap()));
+        if (playerCache)
+            LanguageListener.register(languageStorage, StubServer.plugin());
+        player = StubServer.player("de_DE");
+    }
+
+    @Benchmark
+    public Language getLanguageByString() {
+        return languageStorage.getLanguage("de_DE");
+    }
+
+    @Benchmark
+    public Language getLanguageByPlayer() {
+        return languageStorage.getLanguage(player);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.language.TemplateArguments;
+import de.md5lukas.i18n.translations.Translation;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a message with a string, a number and a third placeholder, either into a new string or into a reused builder. The
+ * third placeholder is either passed by the caller or filled in by a placeholder provider.
+ * <br><br>
+ * With reused arguments and a reused builder and without providers, {@link #renderToArguments()} should not allocate at all, which
+ * the GC profiler enabled by {@link BenchmarkRunner} reports as the normalized allocation rate.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderToBenchmark {
+
+    @Param({"false", "true"})
+    public boolean providers;
+
+    private Translation translation;
+    private Player player;
+    private String[] targetsAndReplacements;
+    private TemplateArguments arguments;
+    private StringBuilder builder;
+
+    @Setup
+    public void setup() {
+        StubServer.install();
+        LanguageStorage languageStorage = new LanguageStorage(BenchmarkLanguages.LANGUAGE_KEYS[0]);
+        languageStorage.setLanguages(BenchmarkLanguages.create(100,
+                Collections.singletonMap("balance", "&7%player% has &6%balance,number% &7coins and the rank %rank%")));
+        translation = new Translation(languageStorage, "balance");
+        player = StubServer.player("de_DE");
+
+        arguments = new TemplateArguments().set("%player%", "Steve").set("%balance%", 1234567L);
+        if (providers) {
+            languageStorage.registerPlaceholder("rank", sender -> "Gold");
+            targetsAndReplacements = new String[]{"%player%", "Steve", "%balance%", "1234567"};
+        } else {
+            arguments.set("%rank%", "Gold");
+            targetsAndReplacements = new String[]{"%player%", "Steve", "%balance%", "1234567", "%rank%", "Gold"};
+        }
+        builder = new StringBuilder(128);
+    }
+
+    @Benchmark
+    public String getAsString() {
+        return translation.getAsString(player, targetsAndReplacements);
+    }
+
+    @Benchmark
+    public StringBuilder renderTo() {
+        builder.setLength(0);
+        return translation.renderTo(builder, player, targetsAndReplacements);
+    }
+
+    @Benchmark
+    public StringBuilder renderToArguments() {
+        builder.setLength(0);
+        return translation.renderTo(builder, player, arguments);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.benchmarks;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * A minimal stand-in for a running server, so the parts of the Bukkit API the library uses work outside of a server.
+ * <br><br>
+ * Item metas are plain property bags and the item factory accepts every meta for every material. Players discard the messages sent
+ * to them. Everything else does nothing and returns default values.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class StubServer {
+
+    private static final ItemFactory itemFactory = proxy(ItemFactory.class, (proxy, method, args) -> {
+        switch (method.getName()) {
+            case "getItemMeta":
+                return newItemMeta(new HashMap<>());
+            case "isApplicable":
+                return true;
+            case "asMetaFor":
+                return args[0];
+            case "updateMaterial":
+                return args[1];
+            default:
+                if (method.getName().equals("equals") && args.length == 2)
+                    return Objects.equals(args[0], args[1]);
+                return objectMethod(proxy, method.getName(), args, method.getReturnType());
+        }
+    });
+
+    private static final Player.Spigot spigot = new Player.Spigot() {
+        @Override
+        public void sendMessage(BaseComponent component) {
+        }
+
+        @Override
+        public void sendMessage(BaseComponent... components) {
+        }
+    };
+
+    private StubServer() {
+    }
+
+    /**
+     * Installs the stub server if no server is installed yet
+     *
+     * @since 1.0.0
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() != null)
+            return;
+
+        PluginManager pluginManager = proxy(PluginManager.class,
+                (proxy, method, args) -> objectMethod(proxy, method.getName(), args, method.getReturnType()));
+        Bukkit.setServer(proxy(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getItemFactory":
+                    return itemFactory;
+                case "getPluginManager":
+                    return pluginManager;
+                case "getLogger":
+                    return Logger.getLogger("StubServer");
+                case "getName":
+                    return "StubServer";
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "benchmark";
+                case "isPrimaryThread":
+                    return true;
+                case "getOnlinePlayers":
+                    return Collections.emptyList();
+                default:
+                    return objectMethod(proxy, method.getName(), args, method.getReturnType());
+            }
+        }));
+    }
+
+    /**
+     * @param locale The locale the player reports
+     * @return A new player with a random unique id
+     * @since 1.0.0
+     */
+    public static Player player(String locale) {
+        UUID uniqueId = UUID.randomUUID();
+        return proxy(Player.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLocale":
+                    return locale;
+                case "getUniqueId":
+                    return uniqueId;
+                case "getName":
+                    return "Player";
+                case "spigot":
+                    return spigot;
+                default:
+                    return objectMethod(proxy, method.getName(), args, method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * @return A new plugin that does nothing
+     * @since 1.0.0
+     */
+    public static Plugin plugin() {
+        return proxy(Plugin.class, (proxy, method, args) -> {
+            if (method.getName().equals("getName"))
+                return "Benchmark";
+            return objectMethod(proxy, method.getName(), args, method.getReturnType());
+        });
+    }
+
+    private static ItemMeta newItemMeta(Map<String, Object> properties) {
+        return proxy(ItemMeta.class, new ItemMetaHandler(properties));
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args, Class<?> returnType) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return proxy.getClass().getInterfaces()[0].getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                return defaultValue(returnType);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class)
+            return null;
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return '\0';
+        if (type == long.class)
+            return 0L;
+        if (type == float.class)
+            return 0F;
+        if (type == double.class)
+            return 0D;
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == short.class)
+            return (short) 0;
+        return 0;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StubServer.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static final class ItemMetaHandler implements InvocationHandler {
+
+        private final Map<String, Object> properties;
+
+        private ItemMetaHandler(Map<String, Object> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            int arguments = args == null ? 0 : args.length;
+            if (name.equals("clone"))
+                return newItemMeta(new HashMap<>(properties));
+            if (name.equals("equals") && arguments == 1) {
+                return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                        && Proxy.getInvocationHandler(args[0]) instanceof ItemMetaHandler
+                        && properties.equals(((ItemMetaHandler) Proxy.getInvocationHandler(args[0])).properties);
+            }
+            if (name.equals("hashCode") && arguments == 0)
+                return properties.hashCode();
+            if (name.equals("toString") && arguments == 0)
+                return "ItemMeta" + properties;
+
+            if (name.startsWith("set") && arguments == 1) {
+                properties.put(name.substring(3), args[0]);
+                return null;
+            }
+            if (name.startsWith("get") && arguments == 0 && properties.containsKey(name.substring(3)))
+                return properties.get(name.substring(3));
+            if (name.startsWith("has") && arguments == 0)
+                return properties.get(name.substring(3)) != null;
+            return defaultValue(method.getReturnType());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import de.md5lukas.i18n.language.MessageTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translates the alternative color codes of a string and looks up the colored copy of a compiled template
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorCodeSettingsBenchmark {
+
+    private static final String SOURCE = "&6&lShop &8- &7You bought &e%amount%x %item% &7for &a%price% &7coins.";
+
+    private ColorCodeSettings colorCodeSettings;
+    private MessageTemplate template;
+
+    @Setup
+    public void setup() {
+        colorCodeSettings = new ColorCodeSettings();
+        template = MessageTemplate.compile(SOURCE);
+    }
+
+    @Benchmark
+    public String applyString() {
+        return colorCodeSettings.apply(SOURCE);
+    }
+
+    @Benchmark
+    public MessageTemplate applyTemplate() {
+        return colorCodeSettings.apply(template);
+    }
+}
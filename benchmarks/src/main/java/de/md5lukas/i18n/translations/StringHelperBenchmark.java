@@ -0,0 +1,89 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import de.md5lukas.i18n.language.MessageTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substitutes placeholders in short and long translations, both with the legacy multi replace and the compiled templates
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringHelperBenchmark {
+
+    private static final String FILLER = "&7Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore. ";
+
+    @Param({"0", "2", "8"})
+    public int placeholders;
+
+    @Param({"short", "long"})
+    public String length;
+
+    private String source;
+    private MessageTemplate template;
+    private String[] targetsAndReplacements;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("&aHello");
+        targetsAndReplacements = new String[placeholders * 2];
+        for (int index = 0; index < placeholders; index++) {
+            if (length.equals("long"))
+                builder.append(' ').append(FILLER);
+            builder.append(" %placeholder").append(index).append('%');
+            targetsAndReplacements[index * 2] = "%placeholder" + index + "%";
+            targetsAndReplacements[index * 2 + 1] = "value" + index;
+        }
+        if (length.equals("long") && placeholders == 0)
+            builder.append(' ').append(FILLER).append(FILLER).append(FILLER).append(FILLER);
+        source = builder.toString();
+        template = MessageTemplate.compile(source);
+    }
+
+    @Benchmark
+    public String multiReplace() {
+        return StringHelper.multiReplace(source, targetsAndReplacements);
+    }
+
+    @Benchmark
+    public String render() {
+        return StringHelper.render(template, Locale.ROOT, ColorCodeSettings.DEFAULT, targetsAndReplacements);
+    }
+}
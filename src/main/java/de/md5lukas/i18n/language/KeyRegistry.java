@@ -0,0 +1,117 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Assigns every translation key a dense integer id, so languages can store their translations in arrays indexed by that id.
+ * <br><br>
+ * Every {@link LanguageStorage} has its own registry, which is shared by all languages set in the storage, so the keys are only
+ * stored once per storage and only the keys of that storage take up slots in the arrays of its languages. Languages created
+ * outside of a storage use a registry of their own and are indexed again when they are set in a storage.
+ * <br><br>
+ * Ids are never reused or removed, so ids obtained by translations stay valid while languages are replaced. All methods are safe
+ * to call from any thread.
+ *
+ * @author Lukas Planz
+ * @see LanguageStorage#getKeyRegistry()
+ * @since 1.0.0
+ */
+public final class KeyRegistry {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] keys = new String[16];
+    private int size;
+
+    /**
+     * Creates a new empty key registry
+     *
+     * @since 1.0.0
+     */
+    public KeyRegistry() {
+    }
+
+    /**
+     * Gets the id of the key and registers the key if it is not known yet
+     *
+     * @param key The translation key
+     * @return The id of the key
+     * @throws NullPointerException If the key is null
+     * @since 1.0.0
+     */
+    public int register(String key) {
+        Integer id = ids.get(checkNotNull(key, "The key to register cannot be null"));
+        if (id != null)
+            return id;
+        return registerNew(key);
+    }
+
+    private synchronized int registerNew(String key) {
+        Integer id = ids.get(key);
+        if (id != null)
+            return id;
+
+        String[] keys = this.keys;
+        if (size == keys.length)
+            keys = Arrays.copyOf(keys, size * 2);
+        keys[size] = key;
+        // The volatile write publishes the new key to threads reading the array
+        this.keys = keys;
+        ids.put(key, size);
+        return size++;
+    }
+
+    /**
+     * Gets the id of the key without registering it
+     *
+     * @param key The translation key
+     * @return The id of the key or <code>-1</code> if the key has not been registered
+     * @throws NullPointerException If the key is null
+     * @since 1.0.0
+     */
+    public int getId(String key) {
+        Integer id = ids.get(checkNotNull(key, "The key to get the id of cannot be null"));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the key that belongs to the id
+     *
+     * @param id The id of the key
+     * @return The key or <code>null</code> if no key has been registered with the id
+     * @since 1.0.0
+     */
+    public String getKey(int id) {
+        String[] keys = this.keys;
+        return id >= 0 && id < keys.length ? keys[id] : null;
+    }
+
+    synchronized long estimateRetainedBytes() {
+        // Every key is referenced by the array and by a map entry with a boxed id
+        long bytes = MemoryReport.estimateReferenceArrayBytes(keys.length) + size * (32L + MemoryReport.OBJECT_BYTES);
+        for (int id = 0; id < size; id++)
+            bytes += MemoryReport.estimateBytes(keys[id]);
+        return bytes;
+    }
+}
@@ -18,8 +18,19 @@
 
 package de.md5lukas.i18n.language;
 
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -32,19 +43,171 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public final class Language {
 
     private final String languageKey;
+    private final Locale locale;
+    private final KeyRegistry keyRegistry;
+    /**
+     * Indexed by the ids of the {@link KeyRegistry}. Contains either a compiled {@link MessageTemplate} or, in compact mode, the
+     * UTF-8 encoded translation until it is accessed for the first time. Languages read from a {@link LanguageBundle} contain the
+     * not yet decoded values of the bundle instead.
+     */
+    private final Object[] values;
+    private final int size;
     private final Map<String, String> translations;
+    /**
+     * The language as it has been provided if this language has been derived from it by filling in fallback values, otherwise this
+     */
+    private final Language base;
+    /**
+     * The ids of the translations filled in from fallback languages, or <code>null</code> if there are none
+     */
+    private final BitSet inherited;
+    /**
+     * The slot of this language in every {@link LanguageCache}, or <code>null</code> if no language store has published it. It is
+     * replaced before the language is published again, so a racy read only ever returns the slot of an older version.
+     */
+    private LanguageCache.Slot cacheSlot;
 
     /**
-     * Creates a new language instance with the provided values
+     * Creates a new language instance with the provided values.
+     * <br><br>
+     * The translations are copied and every translation is compiled into a {@link MessageTemplate} right away. The compiled
+     * templates are stored in an array indexed by the ids a {@link KeyRegistry} of this language assigns to the keys and
+     * identical translations share the same template across all languages.
      *
      * @param languageKey  The language key, e.g. <code>en</code> or <code>de</code>
      * @param translations The actual messages in key / value format
-     * @throws NullPointerException If either the language key or the translations are null
+     * @throws NullPointerException If either the language key, the translations or any of the translation values are null
      * @since 1.0.0
      */
     public Language(String languageKey, Map<String, String> translations) {
+        this(languageKey, translations, false);
+    }
+
+    /**
+     * Creates a new language instance with the provided values.
+     * <br><br>
+     * In compact mode the translations are only stored UTF-8 encoded and compiled the first time they are used. This saves memory
+     * for large languages of which only a small part is actually used.
+     *
+     * @param languageKey  The language key, e.g. <code>en</code> or <code>de</code>
+     * @param translations The actual messages in key / value format
+     * @param compact      Whether the translations should be stored in compact mode
+     * @throws NullPointerException If either the language key, the translations or any of the translation values are null
+     * @see #Language(String, Map)
+     * @since 1.0.0
+     */
+    public Language(String languageKey, Map<String, String> translations, boolean compact) {
+        this(languageKey, translations, compact, new KeyRegistry());
+    }
+
+    /**
+     * Creates a new language instance with the provided values, whose translations are indexed by the ids of the key registry.
+     * <br><br>
+     * Languages set in a {@link LanguageStorage} are indexed by the key registry of the storage, so creating them with that
+     * registry saves indexing them again when they are set.
+     *
+     * @param languageKey  The language key, e.g. <code>en</code> or <code>de</code>
+     * @param translations The actual messages in key / value format
+     * @param compact      Whether the translations should be stored in compact mode
+     * @param keyRegistry  The key registry to index the translations by
+     * @throws NullPointerException If either the language key, the translations, any of the translation values or the key
+     *                              registry are null
+     * @see LanguageStorage#getKeyRegistry()
+     * @see #Language(String, Map, boolean)
+     * @since 1.0.0
+     */
+    public Language(String languageKey, Map<String, String> translations, boolean compact, KeyRegistry keyRegistry) {
         this.languageKey = checkNotNull(languageKey, "The language key cannot be null").toLowerCase();
-        this.translations = Collections.unmodifiableMap(checkNotNull(translations, "The translation map cannot be null"));
+        this.locale = toLocale(this.languageKey);
+        checkNotNull(translations, "The translation map cannot be null");
+        this.keyRegistry = checkNotNull(keyRegistry, "The key registry cannot be null");
+
+        Object[] values = new Object[0];
+        for (Map.Entry<String, String> entry : translations.entrySet()) {
+            int id = keyRegistry.register(entry.getKey());
+            if (id >= values.length)
+                values = Arrays.copyOf(values, Math.max(id + 1, values.length * 2));
+            String value = checkNotNull(entry.getValue(), "The translation of the key %s cannot be null", entry.getKey());
+            values[id] = compact ? value.getBytes(StandardCharsets.UTF_8) : MessageTemplate.compileShared(value);
+        }
+        this.values = values;
+        this.size = translations.size();
+        this.translations = new TranslationMap();
+        this.base = this;
+        this.inherited = null;
+    }
+
+    /**
+     * Creates a language from already prepared values, which are used as they are
+     */
+    Language(String languageKey, KeyRegistry keyRegistry, Object[] values, int size) {
+        this.languageKey = languageKey.toLowerCase();
+        this.locale = toLocale(this.languageKey);
+        this.keyRegistry = keyRegistry;
+        this.values = values;
+        this.size = size;
+        this.translations = new TranslationMap();
+        this.base = this;
+        this.inherited = null;
+    }
+
+    /**
+     * Derives a language from the base language, in which every translation missing in the base language is filled in with the
+     * translation of the first fallback language that contains it. The translations themselves are shared, not copied. All
+     * languages have to be indexed by the same key registry.
+     */
+    Language(Language base, List<Language> fallbacks) {
+        this.languageKey = base.languageKey;
+        this.locale = base.locale;
+        this.keyRegistry = base.keyRegistry;
+        this.base = base;
+
+        int length = base.values.length;
+        for (Language fallback : fallbacks)
+            length = Math.max(length, fallback.values.length);
+        Object[] values = Arrays.copyOf(base.values, length);
+        BitSet inherited = null;
+        int size = base.size;
+        for (int id = 0; id < length; id++) {
+            if (values[id] != null)
+                continue;
+            for (Language fallback : fallbacks) {
+                if (id < fallback.values.length && fallback.values[id] != null) {
+                    values[id] = fallback.values[id];
+                    if (inherited == null)
+                        inherited = new BitSet(length);
+                    inherited.set(id);
+                    size++;
+                    break;
+                }
+            }
+        }
+        this.values = values;
+        this.size = size;
+        this.translations = new TranslationMap();
+        this.inherited = inherited;
+    }
+
+    /**
+     * Indexes the translations of this language by the ids of the key registry. The translations themselves are shared, not
+     * copied.
+     *
+     * @return This language if it is already indexed by the key registry, otherwise a copy indexed by it
+     */
+    Language reindex(KeyRegistry keyRegistry) {
+        if (this.keyRegistry == keyRegistry)
+            return this;
+
+        Object[] values = new Object[0];
+        for (int id = 0; id < this.values.length; id++) {
+            if (this.values[id] == null)
+                continue;
+            int newId = keyRegistry.register(this.keyRegistry.getKey(id));
+            if (newId >= values.length)
+                values = Arrays.copyOf(values, Math.max(newId + 1, values.length * 2));
+            values[newId] = this.values[id];
+        }
+        return new Language(languageKey, keyRegistry, values, size);
     }
 
     /**
@@ -55,6 +218,34 @@ public final class Language {
         return languageKey;
     }
 
+    /**
+     * The locale is derived from the language key, e.g. <code>pt_br</code> results in the language <code>pt</code> and the
+     * country <code>BR</code>. It is used to format typed placeholders.
+     *
+     * @return The locale of this language
+     * @see MessageTemplate
+     * @since 1.0.0
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return The key registry the translations of this language are indexed by
+     * @see #getTemplate(int)
+     * @since 1.0.0
+     */
+    public KeyRegistry getKeyRegistry() {
+        return keyRegistry;
+    }
+
+    private static Locale toLocale(String languageKey) {
+        int index = languageKey.indexOf('_');
+        if (index == -1)
+            index = languageKey.indexOf('-');
+        return index == -1 ? new Locale(languageKey) : new Locale(languageKey.substring(0, index), languageKey.substring(index + 1));
+    }
+
     /**
      * Get a translation from the map based on its key
      *
@@ -65,11 +256,62 @@ public final class Language {
      * @since 1.0.0
      */
     public String getTranslation(String key) {
-        return translations.get(checkNotNull(key, "The key to get the translation from cannot be null"));
+        return getTranslation(keyRegistry.getId(checkNotNull(key, "The key to get the translation from cannot be null")));
+    }
+
+    private String getTranslation(int id) {
+        if (id < 0 || id >= values.length)
+            return null;
+        Object value = values[id];
+        if (value instanceof MessageTemplate)
+            return ((MessageTemplate) value).getSource();
+        if (value == null)
+            return null;
+        return decode(value);
+    }
+
+    private static String decode(Object value) {
+        if (value instanceof LanguageBundle.MappedValue)
+            return ((LanguageBundle.MappedValue) value).decode();
+        return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the compiled template of a translation based on its key
+     *
+     * @param key The key of the translation in the map
+     * @return The compiled template, or <code>null</code> if not present
+     * @throws NullPointerException If the key is null
+     * @since 1.0.0
+     */
+    public MessageTemplate getTemplate(String key) {
+        return getTemplate(keyRegistry.getId(checkNotNull(key, "The key to get the template from cannot be null")));
     }
 
     /**
-     * The returned map of the key / value translations is a read-only view of the stored translations of this language
+     * Get the compiled template of a translation based on the id of its key
+     *
+     * @param id The id of the key in the key registry of this language
+     * @return The compiled template, or <code>null</code> if not present
+     * @see #getKeyRegistry()
+     * @since 1.0.0
+     */
+    public MessageTemplate getTemplate(int id) {
+        if (id < 0 || id >= values.length)
+            return null;
+        Object value = values[id];
+        if (value instanceof MessageTemplate || value == null)
+            return (MessageTemplate) value;
+
+        MessageTemplate template = MessageTemplate.compileShared(decode(value));
+        // Racing threads compile the same immutable template, so the last write winning is fine
+        values[id] = template;
+        return template;
+    }
+
+    /**
+     * The returned map of the key / value translations is a read-only view of the stored translations of this language, including
+     * the translations filled in from fallback languages by the {@link LanguageStorage}
      *
      * @return The translation map
      * @see Collections#unmodifiableMap(Map)
@@ -78,4 +320,116 @@ public final class Language {
     public Map<String, String> getTranslations() {
         return translations;
     }
+
+    /**
+     * @return The language as it has been provided, without any fallback values
+     */
+    Language getBase() {
+        return base;
+    }
+
+    /**
+     * @return <code>true</code> if the translation has been filled in from a fallback language
+     */
+    boolean isInherited(int id) {
+        return inherited != null && inherited.get(id);
+    }
+
+    LanguageCache.Slot getCacheSlot() {
+        return cacheSlot;
+    }
+
+    void setCacheSlot(LanguageCache.Slot cacheSlot) {
+        this.cacheSlot = cacheSlot;
+    }
+
+    /**
+     * Compiles every translation that has not been compiled yet
+     *
+     * @return The amount of translations of this language
+     */
+    int precompile() {
+        int compiled = 0;
+        for (int id = 0; id < values.length; id++) {
+            if (getTemplate(id) != null)
+                compiled++;
+        }
+        return compiled;
+    }
+
+    long estimateRetainedBytes() {
+        long bytes = 2L * MemoryReport.OBJECT_BYTES + MemoryReport.estimateReferenceArrayBytes(values.length);
+        for (Object value : values) {
+            if (value != null)
+                bytes += MemoryReport.estimateValueBytes(value);
+        }
+        return bytes;
+    }
+
+    int getValueSlots() {
+        return values.length;
+    }
+
+    void forEachValue(Consumer<Object> action) {
+        for (Object value : values) {
+            if (value != null)
+                action.accept(value);
+        }
+    }
+
+    private final class TranslationMap extends AbstractMap<String, String> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public String get(Object key) {
+            return key instanceof String ? getTranslation((String) key) : null;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<Entry<String, String>>() {
+
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < values.length && values[from] == null)
+                                from++;
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            int id = next;
+                            next = advance(id + 1);
+                            return new SimpleImmutableEntry<>(keyRegistry.getKey(id), getTranslation(id));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,330 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads and writes precompiled language bundles.
+ * <br><br>
+ * A bundle contains all languages in one binary file: a key table shared by all languages, the offsets of the values of every
+ * language and the UTF-8 encoded values themselves. Reading a bundle only reads the key table and the offsets. The file is mapped
+ * into memory and every value is only decoded and compiled the first time it is accessed, like in compact mode.
+ * <br><br>
+ * Every bundle records the checksum of the files it has been compiled from, so it can be detected when it is outdated, and the
+ * checksum of its own contents, so a damaged bundle is rejected when it is read instead of when a value is decoded.
+ *
+ * @author Lukas Planz
+ * @see LanguageLoader#loadOrCompile(Path)
+ * @since 1.0.0
+ */
+public final class LanguageBundle {
+
+    /**
+     * The version of the binary format, which has to be increased with every incompatible change to the format
+     */
+    static final int FORMAT_VERSION = 2;
+    private static final int MAGIC = 0x4931384E;
+    private static final int HEADER_BYTES = 20;
+
+    private LanguageBundle() {
+    }
+
+    /**
+     * Calculates the CRC32 checksum of the file names and the contents of the files in the provided order
+     *
+     * @param files The source files of a bundle
+     * @return The checksum
+     * @throws NullPointerException If the files or any of the files are null
+     * @throws UncheckedIOException If any of the files could not be read
+     * @since 1.0.0
+     */
+    public static long checksum(Collection<Path> files) {
+        checkNotNull(files, "The files to calculate the checksum of cannot be null");
+        CRC32 crc = new CRC32();
+        for (Path file : files) {
+            checkNotNull(file, "The files to calculate the checksum of cannot contain null");
+            crc.update(file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            try {
+                crc.update(Files.readAllBytes(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the file " + file, e);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Checks whether the bundle exists, has been written with the current format version and has the provided checksum
+     *
+     * @param bundleFile The bundle file
+     * @param checksum   The checksum of the current source files
+     * @return <code>true</code> if the bundle can be read and is not outdated
+     * @throws NullPointerException If the bundle file is null
+     * @see #checksum(Collection)
+     * @since 1.0.0
+     */
+    public static boolean isUpToDate(Path bundleFile, long checksum) {
+        checkNotNull(bundleFile, "The bundle file cannot be null");
+        if (!Files.isRegularFile(bundleFile))
+            return false;
+        try (FileChannel channel = FileChannel.open(bundleFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) != -1) ;
+            // Called on Buffer, because the covariant override of ByteBuffer does not exist on Java 8
+            ((Buffer) header).flip();
+            return header.remaining() == HEADER_BYTES && header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION
+                    && header.getLong() == checksum;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the languages into a bundle.
+     * <br><br>
+     * Only the translations the languages have been created with are written, translations filled in from fallback languages by
+     * the {@link LanguageStorage} are not. The file is replaced atomically where supported, so a running server reading the old
+     * bundle is not affected.
+     *
+     * @param bundleFile The bundle file to write
+     * @param checksum   The checksum of the source files of the languages
+     * @param languages  The languages to write
+     * @throws NullPointerException If the bundle file, the languages or any of the languages are null
+     * @throws UncheckedIOException If the bundle could not be written
+     * @see #checksum(Collection)
+     * @since 1.0.0
+     */
+    public static void write(Path bundleFile, long checksum, Collection<Language> languages) {
+        checkNotNull(bundleFile, "The bundle file cannot be null");
+        checkNotNull(languages, "The languages to write cannot be null");
+
+        // Assign every key used by any language an index in the key table of this bundle
+        Map<String, Integer> keyIndices = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        List<Map<String, String>> translations = new ArrayList<>(languages.size());
+        for (Language language : languages) {
+            Map<String, String> languageTranslations = checkNotNull(language, "The languages to write cannot contain null")
+                    .getBase().getTranslations();
+            translations.add(languageTranslations);
+            for (String key : languageTranslations.keySet()) {
+                if (keyIndices.putIfAbsent(key, keys.size()) == null)
+                    keys.add(key);
+            }
+        }
+
+        try {
+            Path directory = bundleFile.toAbsolutePath().getParent();
+            if (directory != null)
+                Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, bundleFile.getFileName().toString(), ".tmp");
+            try {
+                // The contents are written to memory first, because their checksum is part of the header
+                ByteArrayOutputStream contents = new ByteArrayOutputStream();
+                write(new DataOutputStream(contents), languages, keys, keyIndices, translations);
+                byte[] contentBytes = contents.toByteArray();
+                CRC32 crc = new CRC32();
+                crc.update(contentBytes);
+                try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporaryFile))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeLong(checksum);
+                    out.writeInt((int) crc.getValue());
+                    out.write(contentBytes);
+                }
+                try {
+                    Files.move(temporaryFile, bundleFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    Files.move(temporaryFile, bundleFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the language bundle " + bundleFile, e);
+        }
+    }
+
+    private static void write(DataOutputStream out, Collection<Language> languages, List<String> keys,
+                              Map<String, Integer> keyIndices, List<Map<String, String>> translations) throws IOException {
+        out.writeInt(keys.size());
+        for (String key : keys)
+            writeString(out, key.getBytes(StandardCharsets.UTF_8));
+
+        // The values are written after all tables, so the offsets of the tables only depend on their sizes
+        List<byte[]> values = new ArrayList<>();
+        long tableBytes = 4;
+        int languageIndex = 0;
+        for (Language language : languages) {
+            tableBytes += 4 + language.getLanguageKey().getBytes(StandardCharsets.UTF_8).length + 4
+                    + 12L * translations.get(languageIndex++).size();
+        }
+        long valueOffset = HEADER_BYTES + 4 + tableBytes;
+        for (String key : keys)
+            valueOffset += 4 + key.getBytes(StandardCharsets.UTF_8).length;
+        if (valueOffset > Integer.MAX_VALUE)
+            throw new IOException("The language bundle is too large");
+
+        out.writeInt(languages.size());
+        languageIndex = 0;
+        for (Language language : languages) {
+            Map<String, String> languageTranslations = translations.get(languageIndex++);
+            writeString(out, language.getLanguageKey().getBytes(StandardCharsets.UTF_8));
+            out.writeInt(languageTranslations.size());
+            for (Map.Entry<String, String> entry : languageTranslations.entrySet()) {
+                byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                if (valueOffset + value.length > Integer.MAX_VALUE)
+                    throw new IOException("The language bundle is too large");
+                out.writeInt(keyIndices.get(entry.getKey()));
+                out.writeInt((int) valueOffset);
+                out.writeInt(value.length);
+                values.add(value);
+                valueOffset += value.length;
+            }
+        }
+
+        for (byte[] value : values)
+            out.write(value);
+    }
+
+    private static void writeString(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads all languages of a bundle.
+     * <br><br>
+     * The file is mapped into memory and the mapping stays alive as long as any of the returned languages is in use. Because of
+     * that, the file should not be modified in place while the server is running, which {@link #write(Path, long, Collection)}
+     * never does.
+     *
+     * @param bundleFile The bundle file to read
+     * @return The languages of the bundle
+     * @throws NullPointerException If the bundle file is null
+     * @throws UncheckedIOException If the bundle could not be read or is no valid bundle of the current format version
+     * @since 1.0.0
+     */
+    public static List<Language> read(Path bundleFile) {
+        checkNotNull(bundleFile, "The bundle file cannot be null");
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(bundleFile, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel has been closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the language bundle " + bundleFile, e);
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("The file is no language bundle");
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException("The format version " + version + " of the language bundle is not supported");
+            buffer.getLong();
+            int contentChecksum = buffer.getInt();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != contentChecksum)
+                throw new IOException("The contents of the language bundle are damaged");
+
+            // The languages of the bundle share one key registry, like the languages of a language store
+            KeyRegistry keyRegistry = new KeyRegistry();
+            int[] keyIds = new int[buffer.getInt()];
+            for (int index = 0; index < keyIds.length; index++)
+                keyIds[index] = keyRegistry.register(readString(buffer));
+
+            int languageCount = buffer.getInt();
+            List<Language> languages = new ArrayList<>(languageCount);
+            for (int index = 0; index < languageCount; index++) {
+                String languageKey = readString(buffer);
+                int size = buffer.getInt();
+                Object[] values = new Object[0];
+                for (int entry = 0; entry < size; entry++) {
+                    int id = keyIds[buffer.getInt()];
+                    if (id >= values.length)
+                        values = Arrays.copyOf(values, Math.max(id + 1, values.length * 2));
+                    values[id] = new MappedValue(buffer, buffer.getInt(), buffer.getInt());
+                }
+                languages.add(new Language(languageKey, keyRegistry, values, size));
+            }
+            return Collections.unmodifiableList(languages);
+        } catch (IOException | RuntimeException e) {
+            throw new UncheckedIOException("Could not read the language bundle " + bundleFile,
+                    e instanceof IOException ? (IOException) e : new IOException("The language bundle is corrupted", e));
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+            throw new IOException("The string with the length " + length + " is out of bounds");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A value of a bundle that has not been decoded yet
+     */
+    static final class MappedValue {
+
+        private final ByteBuffer buffer;
+        private final int offset, length;
+
+        private MappedValue(ByteBuffer buffer, int offset, int length) {
+            if (offset < 0 || length < 0 || offset > buffer.limit() - length)
+                throw new IndexOutOfBoundsException("The value at " + offset + " with the length " + length + " is out of bounds");
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        String decode() {
+            byte[] bytes = new byte[length];
+            // The position of the shared buffer is never changed, because it is used by all values and threads
+            ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(offset);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches one value per language of a {@link LanguageStorage}, e.g. a message rendered in that language.
+ * <br><br>
+ * Every time a language store publishes a language, the language is assigned a new slot of the array holding the values. A value
+ * is only returned for the slot it has been stored for, so replacing the languages of the language store invalidates the cached
+ * values without the cache having to be notified. Languages that have not been published by a language store, e.g. languages that
+ * have been created but not set in a language store, are not cached.
+ * <br><br>
+ * Getting a cached value reads a single array element and checks the identity of its slot. All methods are safe to call from any
+ * thread.
+ *
+ * @param <V> The type of the cached values
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class LanguageCache<V> {
+
+    private volatile Entry<?>[] entries = new Entry<?>[0];
+
+    /**
+     * Gets the value cached for the language
+     *
+     * @param language The language to get the value for
+     * @return The value or <code>null</code> if no value has been cached for the language since it has been published
+     * @throws NullPointerException If the language is null
+     * @since 1.0.0
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Language language) {
+        Slot slot = checkNotNull(language, "The language cannot be null").getCacheSlot();
+        Entry<?>[] entries = this.entries;
+        if (slot == null || slot.index >= entries.length)
+            return null;
+        Entry<?> entry = entries[slot.index];
+        return entry != null && entry.slot == slot ? (V) entry.value : null;
+    }
+
+    /**
+     * Caches the value for the language, replacing the value cached for the previous version of the language
+     *
+     * @param language The language to cache the value for
+     * @param value    The value to cache
+     * @throws NullPointerException If the language or the value is null
+     * @since 1.0.0
+     */
+    public void put(Language language, V value) {
+        Slot slot = checkNotNull(language, "The language cannot be null").getCacheSlot();
+        checkNotNull(value, "The value to cache cannot be null");
+        if (slot != null)
+            put(slot, value);
+    }
+
+    private synchronized void put(Slot slot, V value) {
+        Entry<?>[] entries = this.entries;
+        if (slot.index >= entries.length)
+            entries = Arrays.copyOf(entries, Math.max(slot.index + 1, entries.length * 2));
+        entries[slot.index] = new Entry<>(slot, value);
+        // The volatile write publishes the new entry to threads reading the array
+        this.entries = entries;
+    }
+
+    /**
+     * Identifies a language published by a language store. The index is the same for all languages with the same language key.
+     */
+    static final class Slot {
+
+        private final int index;
+
+        Slot(int index) {
+            this.index = index;
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final Slot slot;
+        private final V value;
+
+        private Entry(Slot slot, V value) {
+            this.slot = slot;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A listener that keeps the per-player language cache of a {@link LanguageStorage} up to date.
+ * <br><br>
+ * The cache is only used after this listener has been registered using {@link #register(LanguageStorage, Plugin)}, because the
+ * storage would otherwise not notice players changing their locale.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class LanguageListener implements Listener {
+
+    private final LanguageStorage languageStorage;
+
+    private LanguageListener(LanguageStorage languageStorage) {
+        this.languageStorage = languageStorage;
+    }
+
+    /**
+     * Registers a new listener for the language store and enables the per-player language cache of it
+     *
+     * @param languageStorage The language store to keep up to date
+     * @param plugin          The plugin to register the listener with
+     * @return The registered listener
+     * @throws NullPointerException If either the language store or the plugin are null
+     * @since 1.0.0
+     */
+    public static LanguageListener register(LanguageStorage languageStorage, Plugin plugin) {
+        checkNotNull(languageStorage, "The language store cannot be null");
+        checkNotNull(plugin, "The plugin cannot be null");
+
+        LanguageListener listener = new LanguageListener(languageStorage);
+        Bukkit.getPluginManager().registerEvents(listener, plugin);
+        languageStorage.enablePlayerCache();
+        return listener;
+    }
+
+    /**
+     * Updates the cached language of the player to the new locale
+     *
+     * @param event The event
+     * @since 1.0.0
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLocaleChange(PlayerLocaleChangeEvent event) {
+        languageStorage.updatePlayerLocale(event.getPlayer().getUniqueId(), event.getLocale());
+    }
+
+    /**
+     * Removes the cached language of the player
+     *
+     * @param event The event
+     * @since 1.0.0
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        languageStorage.removePlayer(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Loads all languages from a directory in parallel and off the main thread.
+ * <br><br>
+ * Every <code>.yml</code>, <code>.yaml</code> and <code>.properties</code> file in the directory is treated as one language, with
+ * the file name without the extension as the language key. Nested sections in YAML files are flattened into dotted keys and lists
+ * are joined with line breaks, so they can be used as item descriptions.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class LanguageLoader {
+
+    private static final Logger logger = Logger.getLogger(LanguageLoader.class.getName());
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final Path directory;
+    private int threads;
+    private boolean compact;
+
+    /**
+     * Creates a new loader for the directory with the following default values:
+     * <ul>
+     *     <li>threads = the number of available processors</li>
+     *     <li>compact = false</li>
+     * </ul>
+     *
+     * @param directory The directory containing the language files
+     * @throws NullPointerException If the directory is null
+     * @since 1.0.0
+     */
+    public LanguageLoader(Path directory) {
+        this.directory = checkNotNull(directory, "The directory cannot be null");
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.compact = false;
+    }
+
+    /**
+     * @return The directory containing the language files
+     * @since 1.0.0
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the maximum amount of threads {@link #load()} uses to load the files
+     *
+     * @param threads The new value
+     * @return <code>this</code> for a builder like usage
+     * @throws IllegalArgumentException If threads is less than one
+     * @since 1.0.0
+     */
+    public LanguageLoader setThreads(int threads) {
+        checkArgument(threads > 0, "At least one thread is required");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets whether the languages should be created in compact mode
+     *
+     * @param compact The new value
+     * @return <code>this</code> for a builder like usage
+     * @see Language#Language(String, Map, boolean)
+     * @since 1.0.0
+     */
+    public LanguageLoader setCompact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    /**
+     * Loads all languages using a temporary thread pool with the configured amount of threads
+     *
+     * @return A future that completes with the loaded languages, or exceptionally if any file could not be loaded
+     * @since 1.0.0
+     */
+    public CompletableFuture<List<Language>> load() {
+        return load(new KeyRegistry());
+    }
+
+    private CompletableFuture<List<Language>> load(KeyRegistry keyRegistry) {
+        ExecutorService executor = createExecutor();
+        CompletableFuture<List<Language>> future = load(executor, keyRegistry);
+        future.whenComplete((languages, throwable) -> executor.shutdown());
+        return future;
+    }
+
+    /**
+     * Loads all languages using the provided executor, one task per file
+     *
+     * @param executor The executor to load the files on
+     * @return A future that completes with the loaded languages, or exceptionally if any file could not be loaded
+     * @throws NullPointerException If the executor is null
+     * @since 1.0.0
+     */
+    public CompletableFuture<List<Language>> load(Executor executor) {
+        checkNotNull(executor, "The executor cannot be null");
+
+        return load(executor, new KeyRegistry());
+    }
+
+    private CompletableFuture<List<Language>> load(Executor executor, KeyRegistry keyRegistry) {
+        return CompletableFuture.supplyAsync(this::listLanguageFiles, executor)
+                .thenCompose(files -> load(files, executor, keyRegistry));
+    }
+
+    private CompletableFuture<List<Language>> load(List<Path> files, Executor executor, KeyRegistry keyRegistry) {
+        List<CompletableFuture<Language>> futures = new ArrayList<>(files.size());
+        for (Path file : files)
+            futures.add(CompletableFuture.supplyAsync(() -> loadLanguage(file, keyRegistry), executor));
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Loads all languages from the bundle if it is up to date, otherwise loads them from the language files using a temporary
+     * thread pool and compiles them into the bundle for the next time.
+     * <br><br>
+     * The bundle is up to date if it has been compiled from language files with exactly the same names and contents. A bundle that
+     * is up to date but cannot be read, because it has been damaged, is compiled again as if it was outdated. Languages
+     * read from the bundle only decode their translations the first time they are used, so the compact setting is ignored for
+     * them.
+     *
+     * @param bundleFile The bundle file, which should not be inside the directory of the language files
+     * @return A future that completes with the loaded languages, or exceptionally if any file could not be loaded or the bundle
+     * could not be written
+     * @throws NullPointerException If the bundle file is null
+     * @see LanguageBundle
+     * @since 1.0.0
+     */
+    public CompletableFuture<List<Language>> loadOrCompile(Path bundleFile) {
+        checkNotNull(bundleFile, "The bundle file cannot be null");
+        ExecutorService executor = createExecutor();
+        CompletableFuture<List<Language>> future = CompletableFuture.supplyAsync(() -> {
+            List<Path> files = listLanguageFiles();
+            long checksum = LanguageBundle.checksum(files);
+            if (LanguageBundle.isUpToDate(bundleFile, checksum)) {
+                try {
+                    return CompletableFuture.completedFuture(LanguageBundle.read(bundleFile));
+                } catch (UncheckedIOException e) {
+                    logger.log(Level.WARNING, "Could not read the language bundle " + bundleFile + ", compiling it again", e);
+                }
+            }
+            return load(files, executor, new KeyRegistry()).thenApply(languages -> {
+                LanguageBundle.write(bundleFile, checksum, languages);
+                return languages;
+            });
+        }, executor).thenCompose(languages -> languages);
+        future.whenComplete((languages, throwable) -> executor.shutdown());
+        return future;
+    }
+
+    /**
+     * Loads all languages like {@link #load()} does and installs them using {@link LanguageStorage#setLanguages(List)} when done.
+     * The languages are indexed by the key registry of the language store right away.
+     *
+     * @param languageStorage The language store to install the languages into
+     * @return A future that completes with the loaded languages after they have been installed
+     * @throws NullPointerException If the language store is null
+     * @since 1.0.0
+     */
+    public CompletableFuture<List<Language>> loadInto(LanguageStorage languageStorage) {
+        checkNotNull(languageStorage, "The language store cannot be null");
+        return load(languageStorage.getKeyRegistry()).thenApply(languages -> {
+            languageStorage.setLanguages(languages);
+            return languages;
+        });
+    }
+
+    /**
+     * Loads only the default language of the language store right away and installs all other languages as lazy languages that
+     * are only loaded when they are used for the first time
+     *
+     * @param languageStorage The language store to install the languages into
+     * @return A future that completes after the languages have been installed
+     * @throws NullPointerException If the language store is null
+     * @see LanguageStorage#setLanguages(List, Map)
+     * @since 1.0.0
+     */
+    public CompletableFuture<Void> loadLazilyInto(LanguageStorage languageStorage) {
+        checkNotNull(languageStorage, "The language store cannot be null");
+        return CompletableFuture.runAsync(() -> {
+            String defaultLanguageKey = languageStorage.getDefaultLanguageKey().toLowerCase();
+            KeyRegistry keyRegistry = languageStorage.getKeyRegistry();
+            List<Language> languages = new ArrayList<>(1);
+            Map<String, Supplier<Language>> lazyLanguages = new HashMap<>();
+            for (Path file : listLanguageFiles()) {
+                String languageKey = getLanguageKey(file).toLowerCase();
+                if (languageKey.equals(defaultLanguageKey)) {
+                    languages.add(loadLanguage(file, keyRegistry));
+                } else {
+                    lazyLanguages.put(languageKey, () -> loadLanguage(file, keyRegistry));
+                }
+            }
+            languageStorage.setLanguages(languages, lazyLanguages);
+        });
+    }
+
+    /**
+     * Loads a single language file synchronously
+     *
+     * @param file The language file
+     * @return The loaded language
+     * @throws NullPointerException If the file is null
+     * @throws UncheckedIOException If the file could not be read or parsed
+     * @since 1.0.0
+     */
+    public Language loadLanguage(Path file) {
+        return loadLanguage(file, new KeyRegistry());
+    }
+
+    /**
+     * Loads a single language file synchronously, indexing the translations by the key registry
+     *
+     * @param file        The language file
+     * @param keyRegistry The key registry to index the translations by
+     * @return The loaded language
+     * @throws NullPointerException If the file or the key registry is null
+     * @throws UncheckedIOException If the file could not be read or parsed
+     * @see Language#Language(String, Map, boolean, KeyRegistry)
+     * @since 1.0.0
+     */
+    public Language loadLanguage(Path file, KeyRegistry keyRegistry) {
+        checkNotNull(file, "The file to load cannot be null");
+        try {
+            return new Language(getLanguageKey(file), readTranslations(file), compact, keyRegistry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the language file " + file, e);
+        }
+    }
+
+    /**
+     * Checks whether the file is a language file this loader can read
+     *
+     * @param file The file to check
+     * @return <code>true</code> if the file has a supported extension
+     * @since 1.0.0
+     */
+    public static boolean isLanguageFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".yml") || name.endsWith(".yaml") || name.endsWith(".properties");
+    }
+
+    /**
+     * @param file The language file
+     * @return The language key of the file, which is the file name without the extension
+     * @since 1.0.0
+     */
+    public static String getLanguageKey(Path file) {
+        String name = file.getFileName().toString();
+        int index = name.lastIndexOf('.');
+        return index == -1 ? name : name.substring(0, index);
+    }
+
+    private ExecutorService createExecutor() {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "spigot-i18n-loader-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private List<Path> listLanguageFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> Files.isRegularFile(file) && isLanguageFile(file)).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list the language files in " + directory, e);
+        }
+    }
+
+    static Map<String, String> readTranslations(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().toLowerCase().endsWith(".properties")) {
+                Properties properties = new Properties();
+                properties.load(reader);
+
+                Map<String, String> translations = new HashMap<>(properties.size() * 4 / 3 + 1);
+                properties.stringPropertyNames().forEach(key -> translations.put(key, properties.getProperty(key)));
+                return translations;
+            }
+
+            YamlConfiguration configuration = new YamlConfiguration();
+            configuration.load(reader);
+
+            Map<String, String> translations = new HashMap<>();
+            for (String key : configuration.getKeys(true)) {
+                if (configuration.isConfigurationSection(key))
+                    continue;
+                if (configuration.isList(key)) {
+                    translations.put(key, configuration.getList(key).stream().map(String::valueOf).collect(Collectors.joining("\n")));
+                } else {
+                    translations.put(key, String.valueOf(configuration.get(key)));
+                }
+            }
+            return translations;
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("The YAML of the file is invalid", e);
+        }
+    }
+}
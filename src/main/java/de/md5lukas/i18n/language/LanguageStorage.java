@@ -18,26 +18,89 @@
 
 package de.md5lukas.i18n.language;
 
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * This class is storage for languages that helps retrieving them based on players or the language keys
+ * This class is storage for languages that helps retrieving them based on players or the language keys.
+ * <br><br>
+ * The languages are held in an immutable snapshot that is replaced as a whole whenever the languages or the default language are
+ * changed. Because of that, all getters are safe to call from any thread at any time, also while the languages are being
+ * replaced, without ever blocking or observing a partially updated state. Modifications are serialized among each other.
+ * <br><br>
+ * Translations missing in a language are filled in from its fallback languages when the languages are set, so looking up a
+ * translation never has to walk the fallback chain. See {@link #setFallbackChains(Map)}.
  *
  * @author Lukas Planz
  * @since 1.0.0
  */
 public final class LanguageStorage {
 
-    private String defaultLanguage;
-    private final Map<String, Language> languages;
+    /**
+     * Minecraft only knows about a small, finite set of locales, so this only guards against clients sending garbage
+     */
+    private static final int MAX_CACHED_LANGUAGE_KEYS = 256;
+    private static final Map<String, String[]> languageKeyCandidates = new ConcurrentHashMap<>();
+    /**
+     * The cached placeholder values are only used while the tick counter is advancing, so they never become stale if the task
+     * counting the ticks has been cancelled
+     */
+    private static final long MAX_TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int PLACEHOLDER_CLEANUP_TICKS = 1200;
+    /**
+     * Caches that the provider of a placeholder returned <code>null</code>
+     */
+    private static final String NO_VALUE = new String();
+    private static final String[] NO_PROVIDED_VALUES = new String[0];
+
+    private final KeyRegistry keyRegistry = new KeyRegistry();
+    /**
+     * Assigns every language key the index of its slot in the {@link LanguageCache}s
+     */
+    private final KeyRegistry cacheIndices = new KeyRegistry();
+    private volatile Snapshot snapshot;
+    private Map<String, List<String>> fallbackChains = Collections.emptyMap();
+
+    private volatile boolean cachePlayerLanguages;
+    private final Map<UUID, PlayerLanguage> playerLanguages = new ConcurrentHashMap<>();
+
+    private volatile TranslationMetrics metrics;
+
+    private volatile Map<String, Function<? super CommandSender, ?>> placeholderProviders = Collections.emptyMap();
+    private final Map<UUID, PlayerPlaceholders> playerPlaceholders = new ConcurrentHashMap<>();
+    private volatile long tick = -1;
+    private volatile long tickNanos;
+
+    private final Set<String> declaredKeys = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> declaredPlaceholders = new ConcurrentHashMap<>();
+
+    private volatile long lazyIdleMillis = TimeUnit.MINUTES.toMillis(10);
+    private volatile long lazyMemoryBudget = Long.MAX_VALUE;
 
     /**
      * Creates a new language store with the given default language.
@@ -47,9 +110,21 @@ public final class LanguageStorage {
      * @since 1.0.0
      */
     public LanguageStorage(String defaultLanguage) {
-        setDefaultLanguage(defaultLanguage);
+        this.snapshot = new Snapshot(checkNotNull(defaultLanguage, "The default language cannot be null"), Collections.emptyMap(),
+                Collections.emptyMap(), fallbackChains, cacheIndices);
+    }
 
-        this.languages = new HashMap<>();
+    /**
+     * All languages set in this storage are indexed by this key registry, so every key is only stored once, no matter how many
+     * languages contain it. Languages indexed by another key registry are indexed by this one when they are set, which copies the
+     * array of their translations, but not the translations themselves.
+     *
+     * @return The key registry of this storage
+     * @see Language#Language(String, Map, boolean, KeyRegistry)
+     * @since 1.0.0
+     */
+    public KeyRegistry getKeyRegistry() {
+        return keyRegistry;
     }
 
     /**
@@ -61,7 +136,29 @@ public final class LanguageStorage {
      * @since 1.0.0
      */
     public void setLanguages(List<Language> newLanguages) {
+        setLanguages(newLanguages, Collections.emptyMap());
+    }
+
+    /**
+     * Overrides the old languages (if present) with the new languages in this language store.
+     * <br><br>
+     * In addition to the languages that are always kept in memory, languages can be provided as sources that are only called the
+     * first time {@link #getLanguage(String)} resolves to that language. Languages loaded that way are evicted again if they have
+     * not been used for some time or if they exceed the memory budget, see {@link #setLazyEviction(long, long)}. The default
+     * language always has to be provided directly, so falling back to it never has to wait for a language to load. If a source
+     * throws an exception, the failure is logged and the fallback languages are used instead, until the source is tried again after
+     * 30 seconds.
+     *
+     * @param newLanguages  A list of the new languages that should be used
+     * @param lazyLanguages The sources of languages that should only be loaded when they are used, by their language keys
+     * @throws NullPointerException     If the newLanguages, the lazyLanguages or any of their values are null
+     * @throws IllegalArgumentException If the newLanguages do not contain the default language
+     * @since 1.0.0
+     */
+    public synchronized void setLanguages(List<Language> newLanguages, Map<String, ? extends Supplier<? extends Language>> lazyLanguages) {
         checkNotNull(newLanguages, "The new languages to set cannot be null");
+        checkNotNull(lazyLanguages, "The lazy languages to set cannot be null");
+        String defaultLanguage = snapshot.defaultLanguageKey;
         // Check if any of the languages is null and if the default language is provided
         boolean containsDefaultLanguage = false;
         for (int index = 0; index < newLanguages.size(); index++) {
@@ -72,8 +169,140 @@ public final class LanguageStorage {
         }
         checkArgument(containsDefaultLanguage, "The newLanguages do not contain the default language");
 
-        languages.clear();
-        newLanguages.forEach(language -> languages.put(language.getLanguageKey(), language));
+        Map<String, Language> languages = new HashMap<>(newLanguages.size() * 4 / 3 + 1);
+        newLanguages.forEach(language -> languages.put(language.getLanguageKey(), language.reindex(keyRegistry)));
+
+        Map<String, LazyLanguage> lazy = new HashMap<>(lazyLanguages.size() * 4 / 3 + 1);
+        lazyLanguages.forEach((languageKey, source) -> {
+            String key = languageKey.toLowerCase();
+            checkNotNull(source, "The source of the language %s is null", languageKey);
+            if (!languages.containsKey(key))
+                lazy.put(key, new LazyLanguage(key, reindexing(source)));
+        });
+
+        publish(defaultLanguage, Collections.unmodifiableMap(languages), Collections.unmodifiableMap(lazy));
+    }
+
+    /**
+     * Adds the language to this language store or replaces the language with the same language key, leaving all other languages
+     * untouched. If the language has been provided as a lazy language before, it is kept in memory from now on.
+     *
+     * @param language The new language
+     * @throws NullPointerException If the language is null
+     * @since 1.0.0
+     */
+    public synchronized void setLanguage(Language language) {
+        checkNotNull(language, "The language to set cannot be null");
+
+        Snapshot snapshot = this.snapshot;
+        Map<String, Language> languages = new HashMap<>(snapshot.sources);
+        languages.put(language.getLanguageKey(), language.reindex(keyRegistry));
+        Map<String, LazyLanguage> lazyLanguages = snapshot.lazyLanguages;
+        if (lazyLanguages.containsKey(language.getLanguageKey())) {
+            lazyLanguages = new HashMap<>(lazyLanguages);
+            lazyLanguages.remove(language.getLanguageKey());
+            lazyLanguages = Collections.unmodifiableMap(lazyLanguages);
+        }
+        publish(snapshot.defaultLanguageKey, Collections.unmodifiableMap(languages), lazyLanguages);
+    }
+
+    /**
+     * Replaces the lazy language with the same language key as the language, keeping it lazy. The new version is only kept in
+     * memory if the previous version had been loaded, otherwise it is loaded from the source once it is used.
+     *
+     * @return <code>false</code> if there is no lazy language with the language key, so nothing has been replaced
+     */
+    synchronized boolean replaceLazyLanguage(Language language, Supplier<? extends Language> source) {
+        Snapshot snapshot = this.snapshot;
+        String languageKey = language.getLanguageKey();
+        LazyLanguage previous = snapshot.lazyLanguages.get(languageKey);
+        if (previous == null)
+            return false;
+
+        Map<String, LazyLanguage> lazyLanguages = new HashMap<>(snapshot.lazyLanguages);
+        lazyLanguages.put(languageKey, previous.getIfLoaded() == null ? new LazyLanguage(languageKey, reindexing(source))
+                : new LazyLanguage(languageKey, reindexing(source), language.reindex(keyRegistry)));
+        publish(snapshot.defaultLanguageKey, snapshot.sources, Collections.unmodifiableMap(lazyLanguages));
+        return true;
+    }
+
+    private Supplier<Language> reindexing(Supplier<? extends Language> source) {
+        return () -> {
+            Language language = source.get();
+            return language == null ? null : language.reindex(keyRegistry);
+        };
+    }
+
+    LazyLanguage getLazyLanguage(String languageKey) {
+        return snapshot.lazyLanguages.get(languageKey.toLowerCase());
+    }
+
+    /**
+     * Configures the languages each language falls back to for translations it does not contain.
+     * <br><br>
+     * By default a language with a region falls back to the language without the region, e.g. <code>pt_br</code> to
+     * <code>pt</code>. A chain configured here replaces that implicit fallback. Chains are followed transitively and the default
+     * language is always the last fallback. Languages that are always kept in memory only fall back to other languages that are
+     * always kept in memory, so setting the languages never has to load lazy languages.
+     *
+     * @param fallbackChains The fallback language keys in the order they should be tried, by the language keys
+     * @throws NullPointerException If the fallbackChains or any of their values are null
+     * @since 1.0.0
+     */
+    public synchronized void setFallbackChains(Map<String, ? extends List<String>> fallbackChains) {
+        checkNotNull(fallbackChains, "The fallback chains cannot be null");
+        Map<String, List<String>> chains = new HashMap<>(fallbackChains.size() * 4 / 3 + 1);
+        fallbackChains.forEach((languageKey, chain) -> {
+            List<String> keys = new ArrayList<>(checkNotNull(chain, "The fallback chain of the language %s is null", languageKey).size());
+            chain.forEach(key -> keys.add(checkNotNull(key, "The fallback chain of the language %s contains null", languageKey).toLowerCase()));
+            chains.put(languageKey.toLowerCase(), keys);
+        });
+        this.fallbackChains = Collections.unmodifiableMap(chains);
+
+        Snapshot snapshot = this.snapshot;
+        publish(snapshot.defaultLanguageKey, snapshot.sources, snapshot.lazyLanguages);
+    }
+
+    /**
+     * Gets the language keys of the languages that are used to fill in translations missing in the language, in the order they
+     * are tried
+     *
+     * @param languageKey The language key
+     * @return The language keys of the fallback languages, ending with the default language
+     * @throws NullPointerException If the language key is null
+     * @see #setFallbackChains(Map)
+     * @since 1.0.0
+     */
+    public List<String> getFallbackChain(String languageKey) {
+        return Collections.unmodifiableList(
+                snapshot.getFallbackChain(checkNotNull(languageKey, "The language key cannot be null").toLowerCase()));
+    }
+
+    private void publish(String defaultLanguageKey, Map<String, Language> sources, Map<String, LazyLanguage> lazyLanguages) {
+        snapshot = new Snapshot(defaultLanguageKey, sources, lazyLanguages, fallbackChains, cacheIndices);
+        playerLanguages.clear();
+    }
+
+    /**
+     * Gets a language by its exact language key, without falling back to the default language. Lazy languages are loaded if
+     * necessary. The language contains the translations as they have been provided, without the translations filled in from
+     * fallback languages. It is the instance that has been provided if it has been indexed by the key registry of this storage.
+     *
+     * @param languageKey The language key
+     * @return The language or <code>null</code> if this language store does not contain it
+     * @throws NullPointerException If the language key is null
+     * @since 1.0.0
+     */
+    public Language getLanguageExact(String languageKey) {
+        String key = checkNotNull(languageKey, "The language key cannot be null").toLowerCase();
+        Snapshot snapshot = this.snapshot;
+        Language language = snapshot.sources.get(key);
+        if (language == null) {
+            LazyLanguage lazy = snapshot.lazyLanguages.get(key);
+            if (lazy != null)
+                language = lazy.get();
+        }
+        return language;
     }
 
     /**
@@ -83,7 +312,15 @@ public final class LanguageStorage {
      * @since 1.0.0
      */
     public Language getDefaultLanguage() {
-        return languages.get(defaultLanguage);
+        return snapshot.defaultLanguage;
+    }
+
+    /**
+     * @return The key of the default language
+     * @since 1.0.0
+     */
+    public String getDefaultLanguageKey() {
+        return snapshot.defaultLanguageKey;
     }
 
     /**
@@ -92,26 +329,52 @@ public final class LanguageStorage {
      * @param defaultLanguage The new default language
      * @throws NullPointerException If the new default language is null
      */
-    public void setDefaultLanguage(String defaultLanguage) {
-        this.defaultLanguage = checkNotNull(defaultLanguage, "The default language cannot be null");
+    public synchronized void setDefaultLanguage(String defaultLanguage) {
+        checkNotNull(defaultLanguage, "The default language cannot be null");
+        Snapshot snapshot = this.snapshot;
+        Map<String, Language> sources = snapshot.sources;
+        Map<String, LazyLanguage> lazyLanguages = snapshot.lazyLanguages;
+
+        // The default language has to stay in memory, so a lazy one is loaded before the new default is published. Otherwise
+        // readers could see a snapshot whose default language is not available yet.
+        LazyLanguage lazy = lazyLanguages.get(defaultLanguage.toLowerCase());
+        Language language = lazy == null ? null : lazy.get();
+        if (language != null) {
+            Map<String, Language> promotedSources = new HashMap<>(sources);
+            promotedSources.put(language.getLanguageKey(), language);
+            sources = Collections.unmodifiableMap(promotedSources);
+            Map<String, LazyLanguage> remainingLazyLanguages = new HashMap<>(lazyLanguages);
+            remainingLazyLanguages.remove(language.getLanguageKey());
+            lazyLanguages = Collections.unmodifiableMap(remainingLazyLanguages);
+        }
+        publish(defaultLanguage, sources, lazyLanguages);
     }
 
     /**
      * Gets a language from the languages set via {@link #setLanguages(List)} based on the key provided
      * <br><br>
-     * If the provided language is not available or the key null, the default language is returned
+     * If the language of the exact key, e.g. <code>pt_br</code>, is not available, the language without the region, e.g.
+     * <code>pt</code>, is used. If that is not available either or the key is null, the default language is returned
+     * <br><br>
+     * This method is safe to call from any thread, also while {@link #setLanguages(List)} is running.
      *
      * @param key The key of the language
      * @return The language based on the input key
      * @since 1.0.0
      */
     public Language getLanguage(String key) {
+        return resolve(snapshot, key);
+    }
+
+    private static Language resolve(Snapshot snapshot, String key) {
         if (key == null)
-            return getDefaultLanguage();
-        Language language = languages.get(trimLanguageKey(key));
-        if (language == null)
-            return languages.get(defaultLanguage);
-        return language;
+            return snapshot.defaultLanguage;
+        for (String languageKey : getLanguageKeyCandidates(key)) {
+            Language language = snapshot.getLanguage(languageKey);
+            if (language != null)
+                return language;
+        }
+        return snapshot.defaultLanguage;
     }
 
     /**
@@ -120,6 +383,11 @@ public final class LanguageStorage {
      * If the command sender is a {@link Player}, then {@link Player#getLocale()} is used to retrieve the locale of the player.
      * <br>
      * Otherwise the default language is returned
+     * <br><br>
+     * If a {@link LanguageListener} has been registered for this storage, the resolved language is cached for every player until
+     * the player changes the locale, quits or the languages are replaced.
+     * <br><br>
+     * This method is safe to call from any thread, also while {@link #setLanguages(List)} is running.
      *
      * @param commandSender The command sender to get the language for
      * @return The language of the command sender or <code>null</code> if not present
@@ -127,17 +395,697 @@ public final class LanguageStorage {
      */
     public Language getLanguage(CommandSender commandSender) {
         if (commandSender instanceof Player) {
-            return getLanguage(((Player) commandSender).getLocale());
+            Player player = (Player) commandSender;
+            if (!cachePlayerLanguages)
+                return getLanguage(player.getLocale());
+
+            Snapshot snapshot = this.snapshot;
+            PlayerLanguage cached = playerLanguages.get(player.getUniqueId());
+            if (cached != null && cached.snapshot == snapshot)
+                return cached.language;
+
+            Language language = resolve(snapshot, player.getLocale());
+            // A language that could not be loaded is tried again after a while, so the fallback is not cached
+            if (!snapshot.hasFailedLanguage(player.getLocale()))
+                playerLanguages.put(player.getUniqueId(), new PlayerLanguage(snapshot, language));
+            return language;
         } else {
             return getDefaultLanguage();
         }
     }
 
-    private String trimLanguageKey(String key) {
-        key = key.toLowerCase();
-        int index = key.indexOf('_');
-        if (index == -1)
-            return key;
-        return key.substring(0, index);
+    /**
+     * Gets the compiled template of a translation from the language. If the language does not contain the translation, the
+     * default language is used instead, and if that does not contain it either, the key itself is used as the translation, so
+     * missing translations show up in game instead of causing errors.
+     * <br><br>
+     * If metrics are enabled, the lookup and the use of a fallback are recorded.
+     *
+     * @param language The language to get the translation from
+     * @param keyId    The id of the translation key in the key registry of this storage
+     * @return The compiled template
+     * @throws NullPointerException     If the language is null
+     * @throws IllegalArgumentException If no key has been registered with the id
+     * @see #getKeyRegistry()
+     * @since 1.0.0
+     */
+    public MessageTemplate getTemplate(Language language, int keyId) {
+        checkNotNull(language, "The language cannot be null");
+        TranslationMetrics metrics = this.metrics;
+        if (metrics != null)
+            metrics.recordLookup(language, keyId);
+
+        MessageTemplate template = lookupTemplate(language, keyId);
+        if (template != null) {
+            if (metrics != null && language.getKeyRegistry() == keyRegistry && language.isInherited(keyId))
+                metrics.recordMissing(keyId);
+            return template;
+        }
+
+        if (metrics != null)
+            metrics.recordMissing(keyId);
+        Language defaultLanguage = snapshot.defaultLanguage;
+        if (defaultLanguage != null && defaultLanguage != language) {
+            template = lookupTemplate(defaultLanguage, keyId);
+            if (template != null)
+                return template;
+        }
+        String key = keyRegistry.getKey(keyId);
+        checkArgument(key != null, "No key has been registered with the id %s", keyId);
+        return MessageTemplate.compileShared(key);
+    }
+
+    private MessageTemplate lookupTemplate(Language language, int keyId) {
+        if (language.getKeyRegistry() == keyRegistry)
+            return language.getTemplate(keyId);
+        // The language has not been set in this storage, so it is indexed by another key registry
+        String key = keyRegistry.getKey(keyId);
+        return key == null ? null : language.getTemplate(key);
+    }
+
+    /**
+     * Registers a provider for the placeholder <code>%name%</code>, so translations rendered for a command sender no longer need
+     * to be passed the value of the placeholder.
+     * <br><br>
+     * The provider is only called if the rendered translation actually contains the placeholder and no value has been passed for
+     * it, and it is called on the thread rendering the translation, which usually is the main thread. If it returns
+     * <code>null</code>, the placeholder is left as it is. Numbers returned by the provider can be formatted by typed placeholders.
+     * If {@link #schedulePlaceholderCache(Plugin)} has been called, the values are cached per player for the current tick.
+     * <br><br>
+     * Translations rendered for a language instead of a command sender do not use the providers.
+     *
+     * @param name     The name of the placeholder without the percent signs
+     * @param provider The function providing the value for a command sender
+     * @throws NullPointerException     If the name or the provider is null
+     * @throws IllegalArgumentException If the name is empty or contains a percent sign
+     * @since 1.0.0
+     */
+    public synchronized void registerPlaceholder(String name, Function<? super CommandSender, ?> provider) {
+        checkNotNull(name, "The name of the placeholder cannot be null");
+        checkArgument(!name.isEmpty() && name.indexOf('%') == -1, "The name of the placeholder has to be given without percent signs");
+        checkNotNull(provider, "The provider of the placeholder cannot be null");
+
+        Map<String, Function<? super CommandSender, ?>> providers = new HashMap<>(placeholderProviders);
+        providers.put('%' + name + '%', provider);
+        placeholderProviders = Collections.unmodifiableMap(providers);
+        playerPlaceholders.clear();
+    }
+
+    /**
+     * Removes the provider of the placeholder <code>%name%</code>
+     *
+     * @param name The name of the placeholder without the percent signs
+     * @return <code>true</code> if a provider has been registered for the placeholder
+     * @throws NullPointerException If the name is null
+     * @see #registerPlaceholder(String, Function)
+     * @since 1.0.0
+     */
+    public synchronized boolean unregisterPlaceholder(String name) {
+        String placeholder = '%' + checkNotNull(name, "The name of the placeholder cannot be null") + '%';
+        if (!placeholderProviders.containsKey(placeholder))
+            return false;
+
+        Map<String, Function<? super CommandSender, ?>> providers = new HashMap<>(placeholderProviders);
+        providers.remove(placeholder);
+        placeholderProviders = providers.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(providers);
+        playerPlaceholders.clear();
+        return true;
+    }
+
+    /**
+     * Adds the values of the placeholders of the template that have a registered provider, but have not been passed, to the
+     * targets and replacements
+     *
+     * @param commandSender          The command sender to provide the values for
+     * @param template               The template that is going to be rendered, or <code>null</code>
+     * @param targetsAndReplacements The targets and replacements passed by the caller
+     * @return The targets and replacements with the provided values appended, or the passed array itself if no value has been
+     * provided
+     * @throws NullPointerException If the command sender or the targets and replacements are null
+     * @see #registerPlaceholder(String, Function)
+     * @since 1.0.0
+     */
+    public String[] resolvePlaceholders(CommandSender commandSender, MessageTemplate template, String... targetsAndReplacements) {
+        checkNotNull(commandSender, "The command sender cannot be null");
+        checkNotNull(targetsAndReplacements, "The targets and replacements cannot be null");
+        Map<String, Function<? super CommandSender, ?>> providers = this.placeholderProviders;
+        if (providers.isEmpty() || template == null)
+            return targetsAndReplacements;
+
+        String[] resolved = targetsAndReplacements;
+        int size = targetsAndReplacements.length;
+        for (int index = 0; index < template.getPlaceholderCount(); index++) {
+            String placeholder = template.getPlaceholder(index);
+            Function<? super CommandSender, ?> provider = providers.get(placeholder);
+            if (provider == null || isTarget(resolved, size, placeholder))
+                continue;
+            String value = providePlaceholder(commandSender, placeholder, provider);
+            if (value == null)
+                continue;
+
+            if (resolved == targetsAndReplacements || size + 2 > resolved.length)
+                resolved = Arrays.copyOf(resolved, size + 4);
+            resolved[size++] = placeholder;
+            resolved[size++] = value;
+        }
+        return size == resolved.length ? resolved : Arrays.copyOf(resolved, size);
+    }
+
+    /**
+     * Does the same as {@link #resolvePlaceholders(CommandSender, MessageTemplate, String...)}, but for the placeholders that have
+     * not been set in the arguments. The arguments are not changed.
+     *
+     * @param commandSender The command sender to provide the values for
+     * @param template      The template that is going to be rendered, or <code>null</code>
+     * @param arguments     The arguments passed by the caller
+     * @return The provided values as targets and replacements in alternating order, which is empty if no value has been provided
+     * @throws NullPointerException If the command sender or the arguments are null
+     * @see #registerPlaceholder(String, Function)
+     * @since 1.0.0
+     */
+    public String[] resolvePlaceholders(CommandSender commandSender, MessageTemplate template, TemplateArguments arguments) {
+        checkNotNull(commandSender, "The command sender cannot be null");
+        checkNotNull(arguments, "The arguments cannot be null");
+        Map<String, Function<? super CommandSender, ?>> providers = this.placeholderProviders;
+        if (providers.isEmpty() || template == null)
+            return NO_PROVIDED_VALUES;
+
+        String[] provided = NO_PROVIDED_VALUES;
+        int size = 0;
+        for (int index = 0; index < template.getPlaceholderCount(); index++) {
+            String placeholder = template.getPlaceholder(index);
+            Function<? super CommandSender, ?> provider = providers.get(placeholder);
+            if (provider == null || arguments.indexOf(placeholder) != -1 || isTarget(provided, size, placeholder))
+                continue;
+            String value = providePlaceholder(commandSender, placeholder, provider);
+            if (value == null)
+                continue;
+
+            if (size + 2 > provided.length)
+                provided = Arrays.copyOf(provided, size + 4);
+            provided[size++] = placeholder;
+            provided[size++] = value;
+        }
+        return size == provided.length ? provided : Arrays.copyOf(provided, size);
+    }
+
+    private static boolean isTarget(String[] targetsAndReplacements, int size, String placeholder) {
+        for (int index = 0; index < size; index += 2) {
+            if (placeholder.equals(targetsAndReplacements[index]))
+                return true;
+        }
+        return false;
+    }
+
+    private String providePlaceholder(CommandSender commandSender, String placeholder, Function<? super CommandSender, ?> provider) {
+        long tick = this.tick;
+        if (tick < 0 || !(commandSender instanceof Player) || System.nanoTime() - tickNanos > MAX_TICK_NANOS)
+            return toValue(provider.apply(commandSender));
+
+        UUID player = ((Player) commandSender).getUniqueId();
+        PlayerPlaceholders cached = playerPlaceholders.get(player);
+        if (cached == null || cached.tick != tick) {
+            cached = new PlayerPlaceholders(tick);
+            playerPlaceholders.put(player, cached);
+        }
+        String value = cached.values.get(placeholder);
+        if (value == null) {
+            value = toValue(provider.apply(commandSender));
+            cached.values.put(placeholder, value == null ? NO_VALUE : value);
+        }
+        return value == NO_VALUE ? null : value;
+    }
+
+    private static String toValue(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Starts counting the server ticks, so the values of the placeholder providers are cached per player until the tick is over
+     *
+     * @param plugin The plugin to schedule the task with
+     * @return The scheduled task, which stops the caching again if it is cancelled
+     * @throws NullPointerException If the plugin is null
+     * @see #registerPlaceholder(String, Function)
+     * @since 1.0.0
+     */
+    public BukkitTask schedulePlaceholderCache(Plugin plugin) {
+        checkNotNull(plugin, "The plugin cannot be null");
+        BukkitTask task = Bukkit.getScheduler().runTaskTimer(plugin, this::nextTick, 1, 1);
+        tickNanos = System.nanoTime();
+        tick = Math.max(tick, 0);
+        return task;
+    }
+
+    private void nextTick() {
+        tickNanos = System.nanoTime();
+        long tick = this.tick + 1;
+        this.tick = tick;
+        if (tick % PLACEHOLDER_CLEANUP_TICKS == 0)
+            playerPlaceholders.values().removeIf(cached -> cached.tick != tick);
+    }
+
+    /**
+     * Declares that the key is used, so {@link #verify(boolean)} checks that every language contains it. Translation helpers
+     * declare their keys automatically when they are created.
+     *
+     * @param key The translation key
+     * @throws NullPointerException If the key is null
+     * @since 1.0.0
+     */
+    public void declareKey(String key) {
+        declaredKeys.add(checkNotNull(key, "The key to declare cannot be null"));
+    }
+
+    /**
+     * Declares the key like {@link #declareKey(String)} and the complete set of placeholders, e.g. <code>%name%</code>, that are
+     * passed when the translation is rendered, so {@link #verify(boolean)} can compare them with the placeholders of the
+     * translations. Declaring the placeholders of a key again replaces the previous declaration.
+     *
+     * @param key          The translation key
+     * @param placeholders The placeholders passed when the translation is rendered
+     * @throws NullPointerException If the key, the placeholders or any of the placeholders are null
+     * @since 1.0.0
+     */
+    public void declarePlaceholders(String key, Collection<String> placeholders) {
+        declareKey(key);
+        checkNotNull(placeholders, "The placeholders to declare cannot be null");
+        Set<String> declared = new HashSet<>(placeholders.size() * 4 / 3 + 1);
+        for (String placeholder : placeholders)
+            declared.add(checkNotNull(placeholder, "The placeholders to declare cannot contain null"));
+        declaredPlaceholders.put(key, Collections.unmodifiableSet(declared));
+    }
+
+    /**
+     * Verifies the languages of this storage against the declared keys and placeholders and compiles every translation right
+     * away, so the first time a translation is used after the languages have been loaded is not slower than the others. This is
+     * meant to be called once after the languages have been set, e.g. when the plugin is enabled.
+     * <br><br>
+     * Every language is checked as it has been provided, so keys that are only present in the fallback languages are reported as
+     * missing as well. Placeholders are only checked for keys the placeholders have been declared for.
+     *
+     * @param loadLazyLanguages Whether lazy languages that have not been loaded yet should be loaded to verify them as well.
+     *                          Otherwise only the lazy languages that are currently loaded are verified.
+     * @return The report listing the problems that have been found
+     * @see #declareKey(String)
+     * @see #declarePlaceholders(String, Collection)
+     * @since 1.0.0
+     */
+    public VerificationReport verify(boolean loadLazyLanguages) {
+        Snapshot snapshot = this.snapshot;
+        Map<String, Language> languages = new TreeMap<>(snapshot.languages);
+        for (String languageKey : snapshot.lazyLanguages.keySet()) {
+            Language language = loadLazyLanguages ? snapshot.getLanguage(languageKey) : snapshot.loadedLazyLanguages.get(languageKey);
+            if (language != null)
+                languages.put(languageKey, language);
+        }
+
+        Set<String> keys = new TreeSet<>(declaredKeys);
+        int compiledTemplates = 0;
+        Map<String, List<String>> missingKeys = new TreeMap<>();
+        Map<String, Map<String, List<String>>> unusedPlaceholders = new TreeMap<>(), undeclaredPlaceholders = new TreeMap<>();
+        for (Map.Entry<String, Language> entry : languages.entrySet()) {
+            Language language = entry.getValue(), base = language.getBase();
+            compiledTemplates += language.precompile();
+            // The provided language does not share the array of the derived one, so its values have to be compiled separately
+            if (base != language)
+                base.precompile();
+
+            List<String> missing = new ArrayList<>();
+            Map<String, List<String>> unused = new TreeMap<>(), undeclared = new TreeMap<>();
+            for (String key : keys) {
+                MessageTemplate template = base.getTemplate(key);
+                if (template == null) {
+                    missing.add(key);
+                    continue;
+                }
+
+                Set<String> placeholders = declaredPlaceholders.get(key);
+                if (placeholders == null)
+                    continue;
+                Set<String> present = new TreeSet<>(template.getPlaceholders());
+                List<String> unusedInKey = new ArrayList<>();
+                for (String placeholder : new TreeSet<>(placeholders)) {
+                    if (!present.remove(placeholder))
+                        unusedInKey.add(placeholder);
+                }
+                if (!unusedInKey.isEmpty())
+                    unused.put(key, unusedInKey);
+                if (!present.isEmpty())
+                    undeclared.put(key, new ArrayList<>(present));
+            }
+            if (!missing.isEmpty())
+                missingKeys.put(entry.getKey(), missing);
+            if (!unused.isEmpty())
+                unusedPlaceholders.put(entry.getKey(), unused);
+            if (!undeclared.isEmpty())
+                undeclaredPlaceholders.put(entry.getKey(), undeclared);
+        }
+        return new VerificationReport(languages.size(), compiledTemplates, missingKeys, unusedPlaceholders, undeclaredPlaceholders);
+    }
+
+    /**
+     * Enables metrics for all translations using this storage, or disables them if the metrics are null
+     *
+     * @param metrics The metrics to record to
+     * @throws IllegalStateException If the metrics are already used by another language store
+     * @since 1.0.0
+     */
+    public void setMetrics(TranslationMetrics metrics) {
+        if (metrics != null)
+            metrics.bind(keyRegistry);
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return The metrics translations using this storage record to, or <code>null</code> if metrics are disabled
+     * @since 1.0.0
+     */
+    public TranslationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Estimates how much heap memory the languages currently set in this storage use
+     *
+     * @return The memory report
+     * @since 1.0.0
+     */
+    public MemoryReport getMemoryReport() {
+        Snapshot snapshot = this.snapshot;
+        List<Language> languages = new ArrayList<>(snapshot.languages.values());
+        snapshot.lazyLanguages.values().forEach(lazy -> {
+            Language language = lazy.getIfLoaded();
+            if (language != null)
+                languages.add(language);
+        });
+
+        // Maps every value to the only language using it, or to null if it is shared
+        Map<Object, Language> owners = new IdentityHashMap<>();
+        languages.forEach(language -> language.forEachValue(value -> {
+            if (owners.containsKey(value)) {
+                if (owners.get(value) != language)
+                    owners.put(value, null);
+            } else {
+                owners.put(value, language);
+            }
+        }));
+
+        Map<String, Long> retainedBytes = new HashMap<>();
+        languages.forEach(language ->
+                retainedBytes.put(language.getLanguageKey(), 2L * MemoryReport.OBJECT_BYTES + MemoryReport.estimateReferenceArrayBytes(language.getValueSlots())));
+        long sharedBytes = 0;
+        for (Map.Entry<Object, Language> entry : owners.entrySet()) {
+            Object value = entry.getKey();
+            long bytes = MemoryReport.estimateValueBytes(value);
+            if (entry.getValue() == null) {
+                sharedBytes += bytes;
+            } else {
+                retainedBytes.merge(entry.getValue().getLanguageKey(), bytes, Long::sum);
+            }
+        }
+        return new MemoryReport(retainedBytes, sharedBytes, keyRegistry.estimateRetainedBytes());
+    }
+
+    /**
+     * Configures when languages that have been provided as lazy languages are evicted again by {@link #evictLazyLanguages(Collection)}.
+     * <br>
+     * The defaults are an idle time of ten minutes and no memory budget.
+     *
+     * @param idleMillis   The time in milliseconds after which a language that is not used by any online player is evicted
+     * @param memoryBudget The estimated bytes all loaded lazy languages may use together, before the least recently used ones are
+     *                     evicted even if they are still in use
+     * @throws IllegalArgumentException If any of the values are negative
+     * @since 1.0.0
+     */
+    public void setLazyEviction(long idleMillis, long memoryBudget) {
+        checkArgument(idleMillis >= 0, "The idle time cannot be negative");
+        checkArgument(memoryBudget >= 0, "The memory budget cannot be negative");
+        this.lazyIdleMillis = idleMillis;
+        this.lazyMemoryBudget = memoryBudget;
+    }
+
+    /**
+     * Evicts lazy languages that are idle or exceed the memory budget. Evicted languages are loaded again when they are needed.
+     * Loaded lazy languages that fall back to an evicted language are derived again the next time they are used.
+     *
+     * @param onlinePlayers The players that are currently online, to determine which languages are still in use
+     * @return The amount of evicted languages
+     * @throws NullPointerException If the onlinePlayers are null
+     * @see #setLazyEviction(long, long)
+     * @since 1.0.0
+     */
+    public int evictLazyLanguages(Collection<? extends Player> onlinePlayers) {
+        checkNotNull(onlinePlayers, "The online players cannot be null");
+        Snapshot snapshot = this.snapshot;
+        if (snapshot.lazyLanguages.isEmpty())
+            return 0;
+
+        long now = System.currentTimeMillis();
+        for (Player player : onlinePlayers) {
+            for (String languageKey : getLanguageKeyCandidates(player.getLocale())) {
+                LazyLanguage lazy = snapshot.lazyLanguages.get(languageKey);
+                if (lazy != null && lazy.getIfLoaded() != null)
+                    lazy.markUsed(now);
+            }
+        }
+
+        List<LazyLanguage> loaded = new ArrayList<>();
+        long loadedBytes = 0;
+        for (LazyLanguage lazy : snapshot.lazyLanguages.values()) {
+            if (lazy.getIfLoaded() != null) {
+                loaded.add(lazy);
+                loadedBytes += lazy.getEstimatedBytes();
+            }
+        }
+        loaded.sort(Comparator.comparingLong(LazyLanguage::getLastUsed));
+
+        int evicted = 0;
+        long idleMillis = lazyIdleMillis, memoryBudget = lazyMemoryBudget;
+        for (LazyLanguage lazy : loaded) {
+            if (now - lazy.getLastUsed() < idleMillis && loadedBytes <= memoryBudget)
+                break;
+            loadedBytes -= lazy.getEstimatedBytes();
+            Language language = lazy.evict();
+            if (language != null) {
+                // Derived languages contain the translations of their fallback languages, so every derived language falling back
+                // to the evicted one is dropped as well and derived again when it is needed
+                Set<Language> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+                dropped.add(language);
+                snapshot.loadedLazyLanguages.entrySet().removeIf(entry -> {
+                    if (entry.getKey().equals(lazy.getLanguageKey())
+                            || snapshot.getFallbackChain(entry.getKey()).contains(lazy.getLanguageKey())) {
+                        dropped.add(entry.getValue());
+                        return true;
+                    }
+                    return false;
+                });
+                playerLanguages.values().removeIf(cached -> dropped.contains(cached.language));
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Periodically calls {@link #evictLazyLanguages(Collection)} with the online players on the main thread
+     *
+     * @param plugin      The plugin to schedule the task with
+     * @param periodTicks The period in ticks
+     * @return The scheduled task
+     * @throws NullPointerException     If the plugin is null
+     * @throws IllegalArgumentException If the period is less than one
+     * @since 1.0.0
+     */
+    public BukkitTask scheduleLazyEviction(Plugin plugin, long periodTicks) {
+        checkNotNull(plugin, "The plugin cannot be null");
+        checkArgument(periodTicks > 0, "The period has to be at least one tick");
+        return Bukkit.getScheduler().runTaskTimer(plugin, () -> evictLazyLanguages(Bukkit.getOnlinePlayers()), periodTicks, periodTicks);
+    }
+
+    void enablePlayerCache() {
+        cachePlayerLanguages = true;
+    }
+
+    void updatePlayerLocale(UUID player, String locale) {
+        Snapshot snapshot = this.snapshot;
+        Language language = resolve(snapshot, locale);
+        if (snapshot.hasFailedLanguage(locale)) {
+            playerLanguages.remove(player);
+        } else {
+            playerLanguages.put(player, new PlayerLanguage(snapshot, language));
+        }
+    }
+
+    void removePlayer(UUID player) {
+        playerLanguages.remove(player);
+        playerPlaceholders.remove(player);
+    }
+
+    /**
+     * @return The lowercase key and, if it contains a region, the key without the region
+     */
+    private static String[] getLanguageKeyCandidates(String key) {
+        String[] candidates = languageKeyCandidates.get(key);
+        if (candidates != null)
+            return candidates;
+
+        String languageKey = key.toLowerCase();
+        int index = languageKey.indexOf('_');
+        candidates = index == -1 ? new String[]{languageKey} : new String[]{languageKey, languageKey.substring(0, index)};
+
+        if (languageKeyCandidates.size() < MAX_CACHED_LANGUAGE_KEYS)
+            languageKeyCandidates.put(key, candidates);
+        return candidates;
+    }
+
+    /**
+     * Immutable state of the storage that is published as a whole
+     */
+    private static final class Snapshot {
+
+        private final String defaultLanguageKey;
+        /**
+         * The languages as they have been provided
+         */
+        private final Map<String, Language> sources;
+        /**
+         * The languages with the translations of their fallback languages filled in
+         */
+        private final Map<String, Language> languages;
+        private final Map<String, LazyLanguage> lazyLanguages;
+        /**
+         * The loaded lazy languages with the translations of their fallback languages filled in, by their language keys
+         */
+        private final Map<String, Language> loadedLazyLanguages = new ConcurrentHashMap<>();
+        private final Map<String, List<String>> fallbackChains;
+        private final KeyRegistry cacheIndices;
+        private final Language defaultLanguage;
+
+        private Snapshot(String defaultLanguageKey, Map<String, Language> sources, Map<String, LazyLanguage> lazyLanguages,
+                         Map<String, List<String>> fallbackChains, KeyRegistry cacheIndices) {
+            this.defaultLanguageKey = defaultLanguageKey;
+            this.sources = sources;
+            this.lazyLanguages = lazyLanguages;
+            this.fallbackChains = fallbackChains;
+            this.cacheIndices = cacheIndices;
+
+            Map<String, Language> languages = new HashMap<>(sources.size() * 4 / 3 + 1);
+            sources.forEach((languageKey, language) -> languages.put(languageKey, derive(language, false)));
+            this.languages = Collections.unmodifiableMap(languages);
+            this.defaultLanguage = languages.get(defaultLanguageKey.toLowerCase());
+        }
+
+        private Language getLanguage(String languageKey) {
+            Language language = languages.get(languageKey);
+            if (language != null)
+                return language;
+
+            LazyLanguage lazy = lazyLanguages.get(languageKey);
+            if (lazy == null)
+                return null;
+            Language source = lazy.get();
+            if (source == null)
+                return null;
+            language = loadedLazyLanguages.get(languageKey);
+            if (language == null || language.getBase() != source) {
+                // Racing threads derive equal languages, so the last write winning is fine. Languages derived without a fallback
+                // language that could not be loaded are derived again, so the fallback is tried again after a while.
+                language = derive(source, true);
+                if (!hasFailedFallback(languageKey))
+                    loadedLazyLanguages.put(languageKey, language);
+            }
+            return language;
+        }
+
+        private Language derive(Language language, boolean loadLazy) {
+            List<Language> fallbacks = new ArrayList<>();
+            for (String languageKey : getFallbackChain(language.getLanguageKey())) {
+                Language fallback = sources.get(languageKey);
+                if (fallback == null && loadLazy) {
+                    LazyLanguage lazy = lazyLanguages.get(languageKey);
+                    if (lazy != null)
+                        fallback = lazy.get();
+                }
+                if (fallback != null)
+                    fallbacks.add(fallback);
+            }
+            Language derived = fallbacks.isEmpty() ? language : new Language(language, fallbacks);
+            // Every publication gets a new slot, also if the language is published again as it is, so nothing cached for a
+            // previous publication is used with other fallback languages
+            derived.setCacheSlot(new LanguageCache.Slot(cacheIndices.register(derived.getLanguageKey())));
+            return derived;
+        }
+
+        /**
+         * @return <code>true</code> if any lazy language the key resolves to could not be loaded and is not tried again yet
+         */
+        private boolean hasFailedLanguage(String key) {
+            if (key == null)
+                return false;
+            for (String languageKey : getLanguageKeyCandidates(key)) {
+                if (languages.containsKey(languageKey))
+                    return false;
+                LazyLanguage lazy = lazyLanguages.get(languageKey);
+                if (lazy != null)
+                    return lazy.hasFailed() || hasFailedFallback(languageKey);
+            }
+            return false;
+        }
+
+        private boolean hasFailedFallback(String languageKey) {
+            for (String fallbackKey : getFallbackChain(languageKey)) {
+                LazyLanguage lazy = sources.containsKey(fallbackKey) ? null : lazyLanguages.get(fallbackKey);
+                if (lazy != null && lazy.hasFailed())
+                    return true;
+            }
+            return false;
+        }
+
+        private List<String> getFallbackChain(String languageKey) {
+            List<String> chain = new ArrayList<>();
+            Set<String> visited = new HashSet<>();
+            visited.add(languageKey);
+            collectFallbacks(languageKey, visited, chain);
+            String defaultLanguageKey = this.defaultLanguageKey.toLowerCase();
+            if (visited.add(defaultLanguageKey))
+                chain.add(defaultLanguageKey);
+            return chain;
+        }
+
+        private void collectFallbacks(String languageKey, Set<String> visited, List<String> chain) {
+            List<String> fallbacks = fallbackChains.get(languageKey);
+            if (fallbacks == null) {
+                int index = languageKey.indexOf('_');
+                fallbacks = index == -1 ? Collections.emptyList() : Collections.singletonList(languageKey.substring(0, index));
+            }
+            for (String fallback : fallbacks) {
+                if (visited.add(fallback)) {
+                    chain.add(fallback);
+                    collectFallbacks(fallback, visited, chain);
+                }
+            }
+        }
+    }
+
+    private static final class PlayerPlaceholders {
+
+        private final long tick;
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+
+        private PlayerPlaceholders(long tick) {
+            this.tick = tick;
+        }
+    }
+
+    private static final class PlayerLanguage {
+
+        private final Snapshot snapshot;
+        private final Language language;
+
+        private PlayerLanguage(Snapshot snapshot, Language language) {
+            this.snapshot = snapshot;
+            this.language = language;
+        }
     }
 }
@@ -0,0 +1,234 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Watches the directory of a {@link LanguageLoader} and reloads single languages when their files change.
+ * <br><br>
+ * Only the changed file is parsed again, on the thread of this watcher. The new language is installed using
+ * {@link LanguageStorage#setLanguage(Language)}. Languages that are loaded lazily stay lazy, only their source is replaced and
+ * they are kept in memory only if their previous version was loaded. Translations that have not changed share their compiled
+ * templates with the old language, so caches depending on them stay valid. Deleted files are ignored and the last loaded version
+ * of the language stays in use.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class LanguageWatcher implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(LanguageWatcher.class.getName());
+
+    private final LanguageStorage languageStorage;
+    private final LanguageLoader languageLoader;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private long settleMillis;
+
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a new watcher that installs the reloaded languages into the language store. It has to be started using
+     * {@link #start()}.
+     * <br><br>
+     * Changes are only processed after no further changes have been detected for 200 milliseconds, so files that are written in
+     * multiple steps are not read half written.
+     *
+     * @param languageStorage The language store to install the reloaded languages into
+     * @param languageLoader  The loader to use to load the changed files
+     * @throws NullPointerException If any of the parameters are null
+     * @since 1.0.0
+     */
+    public LanguageWatcher(LanguageStorage languageStorage, LanguageLoader languageLoader) {
+        this.languageStorage = checkNotNull(languageStorage, "The language store cannot be null");
+        this.languageLoader = checkNotNull(languageLoader, "The language loader cannot be null");
+        this.settleMillis = 200;
+    }
+
+    /**
+     * Sets how long to wait for further changes before a changed file is loaded
+     *
+     * @param settleMillis The new value in milliseconds
+     * @return <code>this</code> for a builder like usage
+     * @throws IllegalArgumentException If the value is negative
+     * @since 1.0.0
+     */
+    public LanguageWatcher setSettleMillis(long settleMillis) {
+        checkArgument(settleMillis >= 0, "The settle time cannot be negative");
+        this.settleMillis = settleMillis;
+        return this;
+    }
+
+    /**
+     * Adds a listener that is notified on the thread of this watcher after a language has been reloaded
+     *
+     * @param listener The listener to add
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If the listener is null
+     * @since 1.0.0
+     */
+    public LanguageWatcher addListener(ChangeListener listener) {
+        listeners.add(checkNotNull(listener, "The listener cannot be null"));
+        return this;
+    }
+
+    /**
+     * Starts watching the directory on a new daemon thread
+     *
+     * @throws IOException           If the directory could not be watched
+     * @throws IllegalStateException If this watcher has already been started
+     * @since 1.0.0
+     */
+    public synchronized void start() throws IOException {
+        checkState(watchService == null, "The watcher has already been started");
+
+        watchService = languageLoader.getDirectory().getFileSystem().newWatchService();
+        languageLoader.getDirectory().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(this::run, "spigot-i18n-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the directory
+     *
+     * @throws IOException If the underlying watch service could not be closed
+     * @since 1.0.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<Path> changedFiles = new HashSet<>();
+                // Collect events until the directory has settled down
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() != StandardWatchEventKinds.OVERFLOW)
+                            changedFiles.add(languageLoader.getDirectory().resolve((Path) event.context()));
+                    }
+                    key.reset();
+                } while ((key = watchService.poll(settleMillis, TimeUnit.MILLISECONDS)) != null);
+
+                for (Path file : changedFiles) {
+                    if (Files.isRegularFile(file) && LanguageLoader.isLanguageFile(file))
+                        reload(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // The watcher has been closed
+        }
+    }
+
+    private void reload(Path file) {
+        KeyRegistry keyRegistry = languageStorage.getKeyRegistry();
+        Language language;
+        try {
+            language = languageLoader.loadLanguage(file, keyRegistry);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Could not reload the language file " + file, e);
+            return;
+        }
+
+        // Lazy languages are diffed against their loaded version only, loading them just to diff them would defeat being lazy
+        LazyLanguage lazy = languageStorage.getLazyLanguage(language.getLanguageKey());
+        Language previous = lazy == null ? languageStorage.getLanguageExact(language.getLanguageKey()) : lazy.getIfLoaded();
+        Set<String> changedKeys = diff(previous, language);
+        if (previous != null && changedKeys.isEmpty())
+            return;
+
+        if (lazy == null || !languageStorage.replaceLazyLanguage(language, () -> languageLoader.loadLanguage(file, keyRegistry)))
+            languageStorage.setLanguage(language);
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.onChange(language, changedKeys);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "A listener could not handle the reload of the language " + language.getLanguageKey(), e);
+            }
+        }
+    }
+
+    private static Set<String> diff(Language previous, Language language) {
+        Map<String, String> translations = language.getTranslations();
+        if (previous == null)
+            return Collections.unmodifiableSet(new HashSet<>(translations.keySet()));
+
+        Map<String, String> previousTranslations = previous.getTranslations();
+        Set<String> changedKeys = new HashSet<>();
+        translations.forEach((key, value) -> {
+            if (!Objects.equals(value, previousTranslations.get(key)))
+                changedKeys.add(key);
+        });
+        previousTranslations.keySet().forEach(key -> {
+            if (!translations.containsKey(key))
+                changedKeys.add(key);
+        });
+        return Collections.unmodifiableSet(changedKeys);
+    }
+
+    /**
+     * A listener that gets notified when a language has been reloaded
+     *
+     * @since 1.0.0
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+
+        /**
+         * Called after the reloaded language has been installed into the language store
+         *
+         * @param language    The reloaded language
+         * @param changedKeys The keys that have been added, changed or removed compared to the previous version of the language. If
+         *                    the language is lazy and its previous version was not loaded, all keys of the language are contained.
+         * @since 1.0.0
+         */
+        void onChange(Language language, Set<String> changedKeys);
+    }
+}
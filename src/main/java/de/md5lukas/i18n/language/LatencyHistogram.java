@@ -0,0 +1,163 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds with exponential buckets.
+ * <br><br>
+ * Bucket <code>i</code> counts the latencies that are less than <code>2^i</code> nanoseconds and at least as large as the upper
+ * bound of the previous bucket, so recording a latency only takes a few instructions and never contends with other threads.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The amount of buckets, enough to hold every non-negative long
+     */
+    public static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int index = 0; index < BUCKETS; index++)
+            buckets[index] = new LongAdder();
+    }
+
+    /**
+     * Records a latency, negative latencies are counted as zero
+     *
+     * @param nanos The latency in nanoseconds
+     * @since 1.0.0
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        buckets[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * @return A copy of the current state of this histogram
+     * @since 1.0.0
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int index = 0; index < BUCKETS; index++)
+            counts[index] = buckets[index].sum();
+        return new Snapshot(counts, totalNanos.sum());
+    }
+
+    /**
+     * An immutable copy of the state of a histogram.
+     * <br><br>
+     * The buckets are not cumulative, but can be accumulated easily to export them to systems like Prometheus, which expect the
+     * upper bound of every bucket to include all smaller latencies as well.
+     *
+     * @author Lukas Planz
+     * @since 1.0.0
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count, totalNanos;
+
+        private Snapshot(long[] counts, long totalNanos) {
+            this.counts = counts;
+            long count = 0;
+            for (long bucket : counts)
+                count += bucket;
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+
+        /**
+         * @return The amount of recorded latencies
+         * @since 1.0.0
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The sum of all recorded latencies in nanoseconds
+         * @since 1.0.0
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @param bucket The index of the bucket
+         * @return The amount of latencies recorded in the bucket
+         * @throws IllegalArgumentException If the bucket does not exist
+         * @since 1.0.0
+         */
+        public long getBucketCount(int bucket) {
+            checkArgument(bucket >= 0 && bucket < BUCKETS, "The bucket %s does not exist", bucket);
+            return counts[bucket];
+        }
+
+        /**
+         * @param bucket The index of the bucket
+         * @return The exclusive upper bound of the bucket in nanoseconds
+         * @throws IllegalArgumentException If the bucket does not exist
+         * @since 1.0.0
+         */
+        public static long getUpperBoundNanos(int bucket) {
+            checkArgument(bucket >= 0 && bucket < BUCKETS, "The bucket %s does not exist", bucket);
+            return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+        }
+
+        /**
+         * Estimates a percentile as the upper bound of the bucket it falls into, so the result is at most twice as large as the
+         * actual value
+         *
+         * @param percentile The percentile between 0 and 100
+         * @return The estimated latency in nanoseconds, or <code>0</code> if nothing has been recorded
+         * @throws IllegalArgumentException If the percentile is not between 0 and 100
+         * @since 1.0.0
+         */
+        public long getPercentileNanos(double percentile) {
+            checkArgument(percentile >= 0 && percentile <= 100, "The percentile has to be between 0 and 100");
+            if (count == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank)
+                    return getUpperBoundNanos(bucket);
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return "LatencyHistogram.Snapshot{count=" + count + ", p50=" + getPercentileNanos(50) + "ns, p99="
+                    + getPercentileNanos(99) + "ns}";
+        }
+    }
+}
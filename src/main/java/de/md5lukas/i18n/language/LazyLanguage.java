@@ -0,0 +1,141 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds a language that is only loaded the first time it is used and that can be evicted again
+ */
+final class LazyLanguage {
+
+    private static final Logger logger = Logger.getLogger(LazyLanguage.class.getName());
+    /**
+     * How long the default language is used instead by default after the source failed, before the source is tried again
+     */
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final String languageKey;
+    private final Supplier<? extends Language> source;
+    private final long retryDelayMillis;
+
+    private volatile Language language;
+    /**
+     * The time until which the source is not tried again, because it failed the last time
+     */
+    private volatile long failedUntil;
+    private long estimatedBytes;
+    /**
+     * Only used as a hint for the eviction, so racy updates are fine
+     */
+    private long lastUsed;
+
+    LazyLanguage(String languageKey, Supplier<? extends Language> source) {
+        this(languageKey, source, RETRY_DELAY_MILLIS);
+    }
+
+    LazyLanguage(String languageKey, Supplier<? extends Language> source, long retryDelayMillis) {
+        this.languageKey = languageKey;
+        this.source = source;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Creates a lazy language that has already been loaded, but can still be evicted and loaded from the source again
+     */
+    LazyLanguage(String languageKey, Supplier<? extends Language> source, Language language) {
+        this(languageKey, source);
+        this.estimatedBytes = language.estimateRetainedBytes();
+        this.language = language;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * @return The language, loading it if necessary, or <code>null</code> if it could not be loaded. A source that failed is only
+     * tried again after the retry delay.
+     */
+    Language get() {
+        long now = System.currentTimeMillis();
+        Language language = this.language;
+        if (language == null && now >= failedUntil)
+            language = load(now);
+        lastUsed = now;
+        return language;
+    }
+
+    private synchronized Language load(long now) {
+        Language language = this.language;
+        if (language != null || now < failedUntil)
+            return language;
+
+        try {
+            language = source.get();
+            if (language == null)
+                throw new NullPointerException("The source returned null");
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Could not load the language " + languageKey + ", using the default language for the next "
+                    + TimeUnit.MILLISECONDS.toSeconds(retryDelayMillis) + " seconds", e);
+            failedUntil = now + retryDelayMillis;
+            return null;
+        }
+        failedUntil = 0;
+        estimatedBytes = language.estimateRetainedBytes();
+        this.language = language;
+        return language;
+    }
+
+    /**
+     * @return The evicted language or <code>null</code> if it was not loaded
+     */
+    synchronized Language evict() {
+        Language language = this.language;
+        this.language = null;
+        return language;
+    }
+
+    /**
+     * @return <code>true</code> if the source failed and is not tried again yet
+     */
+    boolean hasFailed() {
+        return System.currentTimeMillis() < failedUntil;
+    }
+
+    Language getIfLoaded() {
+        return language;
+    }
+
+    String getLanguageKey() {
+        return languageKey;
+    }
+
+    synchronized long getEstimatedBytes() {
+        return language == null ? 0 : estimatedBytes;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    void markUsed(long now) {
+        lastUsed = now;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The number formatting and plural rules of a locale, created once per locale and shared by all templates.
+ * <br><br>
+ * Integers are formatted directly into the builder using the grouping separator and grouping size of the locale, just like its
+ * {@link DecimalFormat} would. Other numbers are formatted with a {@link NumberFormat} kept per thread, because those are not
+ * thread-safe.
+ */
+final class LocaleFormat {
+
+    private static final Map<Locale, LocaleFormat> formats = new ConcurrentHashMap<>();
+
+    static final LocaleFormat ROOT = of(Locale.ROOT);
+
+    private final char groupingSeparator, minusSign;
+    /**
+     * The digits between two grouping separators, or <code>0</code> if the locale does not group digits
+     */
+    private final int groupingSize;
+    private final PluralRule pluralRule;
+    private final ThreadLocal<NumberFormat> numberFormat, percentFormat;
+
+    private LocaleFormat(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.minusSign = symbols.getMinusSign();
+        NumberFormat format = NumberFormat.getNumberInstance(locale);
+        this.groupingSize = format instanceof DecimalFormat && format.isGroupingUsed() ? ((DecimalFormat) format).getGroupingSize() : 0;
+        this.pluralRule = PluralRule.forLanguage(locale.getLanguage());
+        this.numberFormat = ThreadLocal.withInitial(() -> NumberFormat.getNumberInstance(locale));
+        this.percentFormat = ThreadLocal.withInitial(() -> NumberFormat.getPercentInstance(locale));
+    }
+
+    static LocaleFormat of(Locale locale) {
+        LocaleFormat format = formats.get(locale);
+        if (format == null)
+            format = formats.computeIfAbsent(locale, LocaleFormat::new);
+        return format;
+    }
+
+    PluralRule getPluralRule() {
+        return pluralRule;
+    }
+
+    void appendInteger(StringBuilder builder, long value) {
+        if (value < 0)
+            builder.append(minusSign);
+        // Works on the negative value, because the absolute value of Long.MIN_VALUE does not fit into a long
+        long negative = value < 0 ? value : -value;
+        int digits = 1;
+        long divisor = 1;
+        while (negative / divisor <= -10) {
+            divisor *= 10;
+            digits++;
+        }
+        for (; digits > 0; digits--, divisor /= 10) {
+            builder.append((char) ('0' - negative / divisor % 10));
+            if (groupingSize > 0 && digits > 1 && (digits - 1) % groupingSize == 0)
+                builder.append(groupingSeparator);
+        }
+    }
+
+    void appendNumber(StringBuilder builder, double value) {
+        if (value == (long) value && Math.abs(value) < 1e15) {
+            appendInteger(builder, (long) value);
+        } else {
+            builder.append(numberFormat.get().format(value));
+        }
+    }
+
+    void appendPercent(StringBuilder builder, double value) {
+        builder.append(percentFormat.get().format(value));
+    }
+}
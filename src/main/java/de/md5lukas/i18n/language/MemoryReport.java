@@ -0,0 +1,128 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An estimate of the heap memory used by the languages of a {@link LanguageStorage}.
+ * <br><br>
+ * The numbers assume a 64-bit JVM with compressed oops and are meant to compare configurations, e.g. with and without compact
+ * mode, rather than to match a heap dump to the byte.
+ *
+ * @author Lukas Planz
+ * @see LanguageStorage#getMemoryReport()
+ * @since 1.0.0
+ */
+public final class MemoryReport {
+
+    static final int OBJECT_BYTES = 16;
+    private static final int STRING_BYTES = 24, ARRAY_BYTES = 16, REFERENCE_BYTES = 4;
+    private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version").startsWith("1.");
+
+    private final Map<String, Long> retainedBytes;
+    private final long sharedBytes;
+    private final long keyTableBytes;
+
+    MemoryReport(Map<String, Long> retainedBytes, long sharedBytes, long keyTableBytes) {
+        this.retainedBytes = Collections.unmodifiableMap(retainedBytes);
+        this.sharedBytes = sharedBytes;
+        this.keyTableBytes = keyTableBytes;
+    }
+
+    /**
+     * The bytes every language retains on its own, i.e. the bytes that would be freed if only that language was removed
+     *
+     * @return A read-only map with the language keys as keys and the retained bytes as values
+     * @since 1.0.0
+     */
+    public Map<String, Long> getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * @return The bytes of the translations that are shared by more than one language
+     * @since 1.0.0
+     */
+    public long getSharedBytes() {
+        return sharedBytes;
+    }
+
+    /**
+     * @return The bytes used by the key table that is shared by all languages of the storage
+     * @see KeyRegistry
+     * @since 1.0.0
+     */
+    public long getKeyTableBytes() {
+        return keyTableBytes;
+    }
+
+    /**
+     * @return The sum of all retained, shared and key table bytes
+     * @since 1.0.0
+     */
+    public long getTotalBytes() {
+        long total = sharedBytes + keyTableBytes;
+        for (long bytes : retainedBytes.values())
+            total += bytes;
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryReport{retainedBytes=" + retainedBytes + ", sharedBytes=" + sharedBytes + ", keyTableBytes=" + keyTableBytes
+                + ", totalBytes=" + getTotalBytes() + '}';
+    }
+
+    static long estimateValueBytes(Object value) {
+        if (value instanceof MessageTemplate)
+            return ((MessageTemplate) value).estimateRetainedBytes();
+        // Only the reference to the mapped bundle and the position of the value, the bundle itself is not on the heap
+        if (value instanceof LanguageBundle.MappedValue)
+            return OBJECT_BYTES + 8;
+        return estimateBytes((byte[]) value);
+    }
+
+    static long estimateBytes(String string) {
+        boolean latin1 = COMPACT_STRINGS;
+        for (int index = 0; latin1 && index < string.length(); index++)
+            latin1 = string.charAt(index) <= 0xFF;
+        return STRING_BYTES + align(ARRAY_BYTES + (long) string.length() * (latin1 ? 1 : 2));
+    }
+
+    static long estimateBytes(String[] strings) {
+        long bytes = estimateReferenceArrayBytes(strings.length);
+        for (String string : strings)
+            bytes += estimateBytes(string);
+        return bytes;
+    }
+
+    static long estimateBytes(byte[] bytes) {
+        return align(ARRAY_BYTES + bytes.length);
+    }
+
+    static long estimateReferenceArrayBytes(int length) {
+        return align(ARRAY_BYTES + (long) length * REFERENCE_BYTES);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7;
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import com.google.common.collect.MapMaker;
+import net.md_5.bungee.api.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A translation that has been parsed once into literal segments and placeholder slots, so it can be rendered in a single pass.
+ * <br><br>
+ * Placeholders are written as <code>%name%</code>, where the name consists of letters, digits, <code>_</code>, <code>-</code> and
+ * <code>.</code>. The target a caller passes to substitute a placeholder is the whole placeholder including the percent signs.
+ * <br><br>
+ * Placeholders can also be typed, in which case their replacement is formatted according to the locale the template is rendered
+ * for. The target of a typed placeholder is still just its name, e.g. <code>%count%</code>:
+ * <ul>
+ *     <li><code>%count,number%</code> formats the number with the grouping of the locale, the styles <code>integer</code> and
+ *     <code>percent</code> can be added like <code>%ratio,number,percent%</code></li>
+ *     <li><code>%count,plural,=0{no coins} one{# coin} other{# coins}%</code> selects the text by the plural rules of the
+ *     locale, where <code>#</code> is replaced by the number. The <code>other</code> branch is required.</li>
+ *     <li><code>%time,duration%</code> formats seconds as <code>m:ss</code> or <code>h:mm:ss</code>, the styles
+ *     <code>millis</code> and <code>ticks</code> change the unit of the replacement</li>
+ * </ul>
+ * Replacements of typed placeholders that are not numbers are inserted as they are. Typed placeholders without a replacement are
+ * left as they have been written, including their type.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class MessageTemplate {
+
+    private static final char PLACEHOLDER_DELIMITER = '%';
+    private static final char NO_COLOR_CHAR = 0;
+    private static final ColoredTemplate[] NO_COLORED_TEMPLATES = new ColoredTemplate[0];
+
+    /**
+     * Identical translations share one template for as long as any language uses it
+     */
+    private static final ConcurrentMap<String, MessageTemplate> sharedTemplates = new MapMaker().weakValues().makeMap();
+
+    private final String source;
+    private final String[] literals;
+    private final String[] placeholders;
+    /**
+     * The formats of the typed placeholders, or <code>null</code> if all placeholders are plain
+     */
+    private final PlaceholderFormat[] formats;
+    private final int literalLength;
+
+    private final char replacementColorChar;
+    /**
+     * The colored copies of this template, one for every combination of color char and replacement coloring in use. Shared
+     * templates are colored with different settings by different translations, so a single slot would keep replacing itself.
+     */
+    private volatile ColoredTemplate[] colored = NO_COLORED_TEMPLATES;
+    private volatile List<MessageTemplate> lines;
+
+    private MessageTemplate(String source, String[] literals, String[] placeholders, PlaceholderFormat[] formats, char replacementColorChar) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.formats = formats;
+        this.replacementColorChar = replacementColorChar;
+
+        int length = 0;
+        for (String literal : literals)
+            length += literal.length();
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses the provided string into a template
+     *
+     * @param source The raw translation
+     * @return The compiled template
+     * @throws NullPointerException If the source is null
+     * @since 1.0.0
+     */
+    public static MessageTemplate compile(String source) {
+        checkNotNull(source, "The source of the template cannot be null");
+
+        List<String> literals = new ArrayList<>(), placeholders = new ArrayList<>();
+        List<PlaceholderFormat> formats = new ArrayList<>();
+        boolean typed = false;
+        int literalStart = 0, index = 0;
+        while ((index = source.indexOf(PLACEHOLDER_DELIMITER, index)) != -1) {
+            int nameEnd = findNameEnd(source, index + 1);
+            if (nameEnd == index + 1 || nameEnd == source.length()) {
+                index++;
+                continue;
+            }
+
+            int end;
+            PlaceholderFormat format = null;
+            if (source.charAt(nameEnd) == PLACEHOLDER_DELIMITER) {
+                end = nameEnd;
+            } else if (source.charAt(nameEnd) == ',' && (end = findTypedEnd(source, nameEnd + 1)) != -1) {
+                format = PlaceholderFormat.parse(source.substring(index, end + 1), source.substring(nameEnd + 1, end));
+                if (format == null) {
+                    index++;
+                    continue;
+                }
+                typed = true;
+            } else {
+                index++;
+                continue;
+            }
+            literals.add(source.substring(literalStart, index));
+            placeholders.add(source.substring(index, nameEnd) + PLACEHOLDER_DELIMITER);
+            formats.add(format);
+            literalStart = index = end + 1;
+        }
+        literals.add(source.substring(literalStart));
+
+        return new MessageTemplate(source, literals.toArray(new String[0]), placeholders.toArray(new String[0]),
+                typed ? formats.toArray(new PlaceholderFormat[0]) : null, NO_COLOR_CHAR);
+    }
+
+    /**
+     * Like {@link #compile(String)}, but returns the template that is already in use for an identical source if there is one
+     */
+    static MessageTemplate compileShared(String source) {
+        MessageTemplate template = sharedTemplates.get(source);
+        if (template == null) {
+            template = compile(source);
+            MessageTemplate previous = sharedTemplates.putIfAbsent(template.source, template);
+            if (previous != null)
+                template = previous;
+        }
+        return template;
+    }
+
+    private static int findNameEnd(String source, int start) {
+        int index = start;
+        while (index < source.length() && isPlaceholderNameChar(source.charAt(index)))
+            index++;
+        return index;
+    }
+
+    /**
+     * @return The index of the closing delimiter of a typed placeholder, ignoring delimiters inside of braces, or <code>-1</code>
+     */
+    private static int findTypedEnd(String source, int start) {
+        int depth = 0;
+        for (int index = start; index < source.length(); index++) {
+            char c = source.charAt(index);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == PLACEHOLDER_DELIMITER && depth == 0) {
+                return index;
+            } else if (c == '\n') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isPlaceholderNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+    }
+
+    /**
+     * Gets a copy of this template with the alternate color codes in the literal parts translated.
+     * <br><br>
+     * The copy is created once per combination of parameters and cached, so calling this method repeatedly with the same parameters is cheap. If
+     * <code>colorReplacements</code> is <code>true</code>, color codes in the substituted replacements are translated while
+     * rendering, otherwise they are inserted verbatim.
+     *
+     * @param altColorChar      The alternate color char to translate
+     * @param colorReplacements Whether color codes in replacements should be translated as well
+     * @return The colored template
+     * @see ChatColor#translateAlternateColorCodes(char, String)
+     * @since 1.0.0
+     */
+    public MessageTemplate colored(char altColorChar, boolean colorReplacements) {
+        int cacheKey = colorReplacements ? altColorChar | 0x10000 : altColorChar;
+        ColoredTemplate[] cached = colored;
+        for (ColoredTemplate entry : cached) {
+            if (entry.cacheKey == cacheKey)
+                return entry.template;
+        }
+
+        String[] coloredLiterals = new String[literals.length];
+        for (int index = 0; index < literals.length; index++)
+            coloredLiterals[index] = ChatColor.translateAlternateColorCodes(altColorChar, literals[index]);
+
+        PlaceholderFormat[] coloredFormats = null;
+        if (formats != null) {
+            coloredFormats = new PlaceholderFormat[formats.length];
+            for (int index = 0; index < formats.length; index++)
+                coloredFormats[index] = formats[index] == null ? null : formats[index].colored(altColorChar);
+        }
+
+        MessageTemplate template = new MessageTemplate(ChatColor.translateAlternateColorCodes(altColorChar, source), coloredLiterals,
+                placeholders, coloredFormats, colorReplacements ? altColorChar : NO_COLOR_CHAR);
+        synchronized (this) {
+            cached = colored;
+            for (ColoredTemplate entry : cached) {
+                if (entry.cacheKey == cacheKey)
+                    return entry.template;
+            }
+            ColoredTemplate[] updated = Arrays.copyOf(cached, cached.length + 1);
+            updated[cached.length] = new ColoredTemplate(cacheKey, template);
+            colored = updated;
+        }
+        return template;
+    }
+
+    /**
+     * Splits this template at every line break (<code>\n</code> or <code>\r\n</code>) into one template per line.
+     * <br><br>
+     * The lines are split once and cached. Colored templates keep their color settings in the lines.
+     *
+     * @return A read-only list of the lines of this template
+     * @since 1.0.0
+     */
+    public List<MessageTemplate> getLines() {
+        List<MessageTemplate> result = lines;
+        if (result == null) {
+            result = Collections.unmodifiableList(splitLines());
+            lines = result;
+        }
+        return result;
+    }
+
+    private List<MessageTemplate> splitLines() {
+        if (source.indexOf('\n') == -1)
+            return Collections.singletonList(this);
+
+        List<MessageTemplate> result = new ArrayList<>();
+        List<String> lineLiterals = new ArrayList<>(), linePlaceholders = new ArrayList<>();
+        List<PlaceholderFormat> lineFormats = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int index = 0; index < literals.length; index++) {
+            String segment = literals[index];
+            int start = 0, lineBreak;
+            while ((lineBreak = segment.indexOf('\n', start)) != -1) {
+                literal.append(segment, start, lineBreak > start && segment.charAt(lineBreak - 1) == '\r' ? lineBreak - 1 : lineBreak);
+                lineLiterals.add(literal.toString());
+                result.add(createLine(lineLiterals, linePlaceholders, lineFormats));
+
+                literal.setLength(0);
+                lineLiterals.clear();
+                linePlaceholders.clear();
+                lineFormats.clear();
+                start = lineBreak + 1;
+            }
+            literal.append(segment, start, segment.length());
+            if (index < placeholders.length) {
+                lineLiterals.add(literal.toString());
+                linePlaceholders.add(placeholders[index]);
+                lineFormats.add(formats == null ? null : formats[index]);
+                literal.setLength(0);
+            }
+        }
+        lineLiterals.add(literal.toString());
+        result.add(createLine(lineLiterals, linePlaceholders, lineFormats));
+        return result;
+    }
+
+    private MessageTemplate createLine(List<String> lineLiterals, List<String> linePlaceholders, List<PlaceholderFormat> lineFormats) {
+        StringBuilder lineSource = new StringBuilder();
+        boolean typed = false;
+        for (int index = 0; index < linePlaceholders.size(); index++) {
+            PlaceholderFormat format = lineFormats.get(index);
+            lineSource.append(lineLiterals.get(index)).append(format == null ? linePlaceholders.get(index) : format.token);
+            typed |= format != null;
+        }
+        lineSource.append(lineLiterals.get(linePlaceholders.size()));
+
+        return new MessageTemplate(lineSource.toString(), lineLiterals.toArray(new String[0]), linePlaceholders.toArray(new String[0]),
+                typed ? lineFormats.toArray(new PlaceholderFormat[0]) : null, replacementColorChar);
+    }
+
+    /**
+     * @return The raw translation this template has been compiled from, with color codes translated if this is a colored template
+     * @see #colored(char, boolean)
+     * @since 1.0.0
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return <code>true</code> if this template contains at least one placeholder
+     * @since 1.0.0
+     */
+    public boolean hasPlaceholders() {
+        return placeholders.length > 0;
+    }
+
+    int getPlaceholderCount() {
+        return placeholders.length;
+    }
+
+    String getPlaceholder(int index) {
+        return placeholders[index];
+    }
+
+    /**
+     * The returned list contains the placeholders in the order they appear in the template, including duplicates
+     *
+     * @return A read-only list of the placeholders
+     * @since 1.0.0
+     */
+    public List<String> getPlaceholders() {
+        return Collections.unmodifiableList(Arrays.asList(placeholders));
+    }
+
+    /**
+     * Gets a placeholder as it has been written in the source. For plain placeholders this is the placeholder itself, for typed
+     * placeholders it includes their type, e.g. <code>%count,number%</code>.
+     *
+     * @param index The index of the placeholder in the list returned by {@link #getPlaceholders()}
+     * @return The placeholder as written in the source
+     * @throws IndexOutOfBoundsException If there is no placeholder at the index
+     * @since 1.0.0
+     */
+    public String getToken(int index) {
+        checkElementIndex(index, placeholders.length, "The index of the placeholder");
+        return formats != null && formats[index] != null ? formats[index].token : placeholders[index];
+    }
+
+    /**
+     * Renders only one placeholder with the replacement, exactly like it is rendered as part of the whole template
+     *
+     * @param index       The index of the placeholder in the list returned by {@link #getPlaceholders()}
+     * @param locale      The locale to format typed placeholders for
+     * @param replacement The replacement of the placeholder
+     * @return The rendered placeholder
+     * @throws NullPointerException      If the locale or the replacement is null
+     * @throws IndexOutOfBoundsException If there is no placeholder at the index
+     * @since 1.0.0
+     */
+    public String renderPlaceholder(int index, Locale locale, String replacement) {
+        LocaleFormat format = LocaleFormat.of(checkNotNull(locale, "The locale cannot be null"));
+        checkNotNull(replacement, "The replacement cannot be null");
+        checkElementIndex(index, placeholders.length, "The index of the placeholder");
+        if (formats != null && formats[index] != null) {
+            StringBuilder builder = new StringBuilder(replacement.length() + 8);
+            formats[index].append(builder, format, replacement);
+            return builder.toString();
+        }
+        if (replacementColorChar == NO_COLOR_CHAR)
+            return replacement;
+        StringBuilder builder = new StringBuilder(replacement);
+        translateColorCodes(builder, 0);
+        return builder.toString();
+    }
+
+    /**
+     * Checks whether the provided target is a placeholder of this template
+     *
+     * @param target The target to check
+     * @return <code>true</code> if the target is a placeholder of this template
+     * @since 1.0.0
+     */
+    public boolean hasPlaceholder(String target) {
+        for (String placeholder : placeholders) {
+            if (placeholder.equals(target))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Renders this template by substituting the placeholders with the matching replacements.
+     * <br><br>
+     * Placeholders without a matching target are left as they are and targets that are not a placeholder of this template are
+     * ignored. Replacements are never searched for further placeholders, their color codes are only translated if this is a
+     * colored template that colors replacements. Typed placeholders are formatted without any locale specific conventions.
+     *
+     * @param targetsAndReplacements The targets and replacements in alternating order
+     * @return The rendered template
+     * @since 1.0.0
+     */
+    public String render(String... targetsAndReplacements) {
+        return render(LocaleFormat.ROOT, targetsAndReplacements);
+    }
+
+    /**
+     * Does the same as {@link #render(String...)}, but formats typed placeholders according to the locale
+     *
+     * @param locale                 The locale to format typed placeholders for
+     * @param targetsAndReplacements The targets and replacements in alternating order
+     * @return The rendered template
+     * @throws NullPointerException If the locale is null
+     * @see Language#getLocale()
+     * @since 1.0.0
+     */
+    public String render(Locale locale, String... targetsAndReplacements) {
+        return render(LocaleFormat.of(checkNotNull(locale, "The locale cannot be null")), targetsAndReplacements);
+    }
+
+    private String render(LocaleFormat format, String[] targetsAndReplacements) {
+        if (placeholders.length == 0)
+            return source;
+
+        int length = literalLength;
+        for (String placeholder : placeholders)
+            length += lookup(placeholder, targetsAndReplacements).length();
+
+        StringBuilder builder = new StringBuilder(length);
+        renderTo(builder, format, targetsAndReplacements);
+        return builder.toString();
+    }
+
+    /**
+     * Does the same as {@link #render(String...)}, but appends the result to the provided builder instead of creating a new string
+     *
+     * @param builder                The builder to append to
+     * @param targetsAndReplacements The targets and replacements in alternating order
+     * @since 1.0.0
+     */
+    public void renderTo(StringBuilder builder, String... targetsAndReplacements) {
+        renderTo(builder, LocaleFormat.ROOT, targetsAndReplacements);
+    }
+
+    /**
+     * Does the same as {@link #render(Locale, String...)}, but appends the result to the provided builder instead of creating a
+     * new string
+     *
+     * @param builder                The builder to append to
+     * @param locale                 The locale to format typed placeholders for
+     * @param targetsAndReplacements The targets and replacements in alternating order
+     * @throws NullPointerException If the locale is null
+     * @since 1.0.0
+     */
+    public void renderTo(StringBuilder builder, Locale locale, String... targetsAndReplacements) {
+        renderTo(builder, LocaleFormat.of(checkNotNull(locale, "The locale cannot be null")), targetsAndReplacements);
+    }
+
+    private void renderTo(StringBuilder builder, LocaleFormat format, String[] targetsAndReplacements) {
+        builder.ensureCapacity(builder.length() + literalLength);
+        for (int index = 0; index < placeholders.length; index++) {
+            builder.append(literals[index]);
+            String replacement = lookup(placeholders[index], targetsAndReplacements);
+            if (formats != null && formats[index] != null) {
+                if (replacement == placeholders[index]) {
+                    builder.append(formats[index].token);
+                } else {
+                    formats[index].append(builder, format, replacement);
+                }
+                continue;
+            }
+            int start = builder.length();
+            builder.append(replacement);
+            if (replacementColorChar != NO_COLOR_CHAR)
+                translateColorCodes(builder, start);
+        }
+        builder.append(literals[placeholders.length]);
+    }
+
+    /**
+     * Does the same as {@link #renderTo(StringBuilder, String...)}, but takes the replacements from the arguments. Rendering this
+     * way does not allocate any memory apart from growing the builder if necessary.
+     *
+     * @param builder   The builder to append to
+     * @param arguments The replacements for the placeholders
+     * @since 1.0.0
+     */
+    public void renderTo(StringBuilder builder, TemplateArguments arguments) {
+        renderTo(builder, LocaleFormat.ROOT, arguments);
+    }
+
+    /**
+     * Does the same as {@link #renderTo(StringBuilder, TemplateArguments)}, but formats typed placeholders according to the locale.
+     * Numbers set in the arguments are formatted without being converted to a string first.
+     *
+     * @param builder   The builder to append to
+     * @param locale    The locale to format typed placeholders for
+     * @param arguments The replacements for the placeholders
+     * @throws NullPointerException If the locale is null
+     * @since 1.0.0
+     */
+    public void renderTo(StringBuilder builder, Locale locale, TemplateArguments arguments) {
+        renderTo(builder, LocaleFormat.of(checkNotNull(locale, "The locale cannot be null")), arguments);
+    }
+
+    private void renderTo(StringBuilder builder, LocaleFormat format, TemplateArguments arguments) {
+        builder.ensureCapacity(builder.length() + literalLength);
+        for (int index = 0; index < placeholders.length; index++) {
+            builder.append(literals[index]);
+            if (formats != null && formats[index] != null) {
+                if (!arguments.appendTo(placeholders[index], builder, formats[index], format))
+                    builder.append(formats[index].token);
+                continue;
+            }
+            int start = builder.length();
+            if (!arguments.appendTo(placeholders[index], builder))
+                builder.append(placeholders[index]);
+            if (replacementColorChar != NO_COLOR_CHAR)
+                translateColorCodes(builder, start);
+        }
+        builder.append(literals[placeholders.length]);
+    }
+
+    /**
+     * Estimates the bytes retained by this template, including the cached colored copies and lines
+     */
+    long estimateRetainedBytes() {
+        long bytes = MemoryReport.OBJECT_BYTES + MemoryReport.estimateBytes(source)
+                + MemoryReport.estimateBytes(literals) + MemoryReport.estimateBytes(placeholders);
+        if (formats != null) {
+            bytes += MemoryReport.estimateReferenceArrayBytes(formats.length);
+            for (PlaceholderFormat format : formats) {
+                if (format != null)
+                    bytes += MemoryReport.OBJECT_BYTES + MemoryReport.estimateBytes(format.token);
+            }
+        }
+        ColoredTemplate[] colored = this.colored;
+        if (colored.length > 0)
+            bytes += MemoryReport.estimateReferenceArrayBytes(colored.length);
+        for (ColoredTemplate entry : colored)
+            bytes += MemoryReport.OBJECT_BYTES + entry.template.estimateRetainedBytes();
+        List<MessageTemplate> lines = this.lines;
+        if (lines != null && (lines.size() > 1 || lines.get(0) != this)) {
+            for (MessageTemplate line : lines)
+                bytes += line.estimateRetainedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Does the same as {@link ChatColor#translateAlternateColorCodes(char, String)}, but in place from the start index onwards
+     */
+    private void translateColorCodes(StringBuilder builder, int start) {
+        for (int index = start; index < builder.length() - 1; index++) {
+            if (builder.charAt(index) == replacementColorChar && ChatColor.ALL_CODES.indexOf(builder.charAt(index + 1)) > -1) {
+                builder.setCharAt(index, ChatColor.COLOR_CHAR);
+                builder.setCharAt(index + 1, Character.toLowerCase(builder.charAt(index + 1)));
+            }
+        }
+    }
+
+    private static String lookup(String placeholder, String[] targetsAndReplacements) {
+        for (int index = 0; index < targetsAndReplacements.length - 1; index += 2) {
+            if (placeholder.equals(targetsAndReplacements[index]))
+                return targetsAndReplacements[index + 1];
+        }
+        return placeholder;
+    }
+
+    private static final class ColoredTemplate {
+
+        private final int cacheKey;
+        private final MessageTemplate template;
+
+        private ColoredTemplate(int cacheKey, MessageTemplate template) {
+            this.cacheKey = cacheKey;
+            this.template = template;
+        }
+    }
+}
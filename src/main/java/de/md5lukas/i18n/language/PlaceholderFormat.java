@@ -0,0 +1,340 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import de.md5lukas.i18n.language.PluralRule.PluralCategory;
+import net.md_5.bungee.api.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The format of a typed placeholder like <code>%count,number%</code>, which formats its replacement according to the locale of
+ * the language it is rendered for. Formats are immutable and shared by every rendering of a template.
+ */
+abstract class PlaceholderFormat {
+
+    /**
+     * The whole placeholder as written in the translation
+     */
+    final String token;
+
+    private PlaceholderFormat(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Parses the type and style of a typed placeholder
+     *
+     * @param token The whole placeholder as written in the translation
+     * @param spec  The part of the placeholder after the name, e.g. <code>number,percent</code>
+     * @return The format or <code>null</code> if the type or style is invalid
+     */
+    static PlaceholderFormat parse(String token, String spec) {
+        int index = spec.indexOf(',');
+        String type = (index == -1 ? spec : spec.substring(0, index)).trim();
+        String style = index == -1 ? null : spec.substring(index + 1).trim();
+
+        switch (type) {
+            case "number":
+                if (style == null || style.equals("integer") || style.equals("percent"))
+                    return new Numeric(token, style);
+                return null;
+            case "duration":
+                long unitMillis = style == null || style.equals("seconds") ? 1000 : style.equals("millis") ? 1 : style.equals("ticks") ? 50 : -1;
+                return unitMillis == -1 ? null : new Duration(token, unitMillis);
+            case "plural":
+                return style == null ? null : Plural.parseBranches(token, style);
+            default:
+                return null;
+        }
+    }
+
+    abstract void append(StringBuilder builder, LocaleFormat format, long value);
+
+    abstract void append(StringBuilder builder, LocaleFormat format, double value);
+
+    /**
+     * Appends the replacement as a number if it is a plain decimal number like <code>-12</code> or <code>3.5</code>, or as it is
+     * otherwise. Other notations {@link Double#parseDouble(String)} accepts, like <code>3d</code> or <code>NaN</code>, are text.
+     */
+    void append(StringBuilder builder, LocaleFormat format, String value) {
+        if (isInteger(value)) {
+            try {
+                append(builder, format, Long.parseLong(value));
+                return;
+            } catch (NumberFormatException ignored) {
+                // Too large for a long, so it is parsed as a double below
+            }
+        }
+        if (isDecimal(value)) {
+            append(builder, format, Double.parseDouble(value));
+        } else {
+            builder.append(value);
+        }
+    }
+
+    /**
+     * @return A copy of this format with the alternate color codes in its literal text translated
+     */
+    PlaceholderFormat colored(char altColorChar) {
+        return this;
+    }
+
+    private static boolean isInteger(String value) {
+        int start = value.startsWith("-") ? 1 : 0;
+        if (start == value.length())
+            return false;
+        for (int index = start; index < value.length(); index++) {
+            char c = value.charAt(index);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if the value consists of an optional sign, digits and an optional fraction of digits
+     */
+    private static boolean isDecimal(String value) {
+        int index = value.startsWith("-") || value.startsWith("+") ? 1 : 0;
+        int digitsStart = index;
+        while (index < value.length() && isDigit(value.charAt(index)))
+            index++;
+        if (index == digitsStart)
+            return false;
+        if (index < value.length() && value.charAt(index) == '.') {
+            int fractionStart = ++index;
+            while (index < value.length() && isDigit(value.charAt(index)))
+                index++;
+            if (index == fractionStart)
+                return false;
+        }
+        return index == value.length();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * <code>%name,number%</code>, <code>%name,number,integer%</code> and <code>%name,number,percent%</code>
+     */
+    private static final class Numeric extends PlaceholderFormat {
+
+        private final String style;
+
+        private Numeric(String token, String style) {
+            super(token);
+            this.style = style;
+        }
+
+        @Override
+        void append(StringBuilder builder, LocaleFormat format, long value) {
+            if ("percent".equals(style)) {
+                format.appendPercent(builder, value);
+            } else {
+                format.appendInteger(builder, value);
+            }
+        }
+
+        @Override
+        void append(StringBuilder builder, LocaleFormat format, double value) {
+            if (style == null) {
+                format.appendNumber(builder, value);
+            } else if (style.equals("integer")) {
+                format.appendInteger(builder, Math.round(value));
+            } else {
+                format.appendPercent(builder, value);
+            }
+        }
+    }
+
+    /**
+     * <code>%name,duration%</code> with the replacement in seconds, or in the unit of the style (<code>seconds</code>,
+     * <code>millis</code> or <code>ticks</code>), formatted as <code>h:mm:ss</code> or <code>m:ss</code> if less than an hour
+     */
+    private static final class Duration extends PlaceholderFormat {
+
+        private final long unitMillis;
+
+        private Duration(String token, long unitMillis) {
+            super(token);
+            this.unitMillis = unitMillis;
+        }
+
+        @Override
+        void append(StringBuilder builder, LocaleFormat format, long value) {
+            // The units are whole fractions or multiples of a second, so the value is never multiplied by the milliseconds
+            long seconds;
+            if (unitMillis < 1000) {
+                seconds = value / (1000 / unitMillis);
+            } else {
+                long multiplier = unitMillis / 1000;
+                seconds = Math.abs(value) > Long.MAX_VALUE / multiplier ? (value < 0 ? Long.MIN_VALUE : Long.MAX_VALUE)
+                        : value * multiplier;
+            }
+            if (seconds < 0)
+                builder.append('-');
+            // The parts are taken of the signed value, because the absolute value of Long.MIN_VALUE does not fit into a long
+            long hours = Math.abs(seconds / 3600), minutes = Math.abs(seconds / 60 % 60), remainder = Math.abs(seconds % 60);
+            if (hours > 0) {
+                builder.append(hours).append(':');
+                if (minutes < 10)
+                    builder.append('0');
+            }
+            builder.append(minutes).append(':');
+            if (remainder < 10)
+                builder.append('0');
+            builder.append(remainder);
+        }
+
+        @Override
+        void append(StringBuilder builder, LocaleFormat format, double value) {
+            append(builder, format, (long) value);
+        }
+    }
+
+    /**
+     * <code>%name,plural,=0{no coins} one{# coin} other{# coins}%</code>, where <code>#</code> is replaced by the number. Branches
+     * for exact values take precedence over the plural categories of the language and the <code>other</code> branch is required.
+     */
+    private static final class Plural extends PlaceholderFormat {
+
+        private static final String[][] EMPTY = new String[0][];
+
+        private final long[] exactValues;
+        /**
+         * The text of every branch, split at <code>#</code>
+         */
+        private final String[][] exactBranches, categoryBranches;
+
+        private Plural(String token, long[] exactValues, String[][] exactBranches, String[][] categoryBranches) {
+            super(token);
+            this.exactValues = exactValues;
+            this.exactBranches = exactBranches;
+            this.categoryBranches = categoryBranches;
+        }
+
+        private static Plural parseBranches(String token, String style) {
+            List<Long> exactValues = new ArrayList<>();
+            List<String[]> exactBranches = new ArrayList<>();
+            String[][] categoryBranches = new String[PluralCategory.values().length][];
+
+            int index = 0;
+            while (index < style.length()) {
+                if (Character.isWhitespace(style.charAt(index))) {
+                    index++;
+                    continue;
+                }
+                int open = style.indexOf('{', index), close = open == -1 ? -1 : style.indexOf('}', open);
+                if (close == -1)
+                    return null;
+                String selector = style.substring(index, open).trim();
+                String[] branch = split(style.substring(open + 1, close));
+                if (selector.startsWith("=")) {
+                    try {
+                        exactValues.add(Long.parseLong(selector.substring(1)));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    exactBranches.add(branch);
+                } else {
+                    PluralCategory category = PluralCategory.byName(selector);
+                    if (category == null)
+                        return null;
+                    categoryBranches[category.ordinal()] = branch;
+                }
+                index = close + 1;
+            }
+            if (categoryBranches[PluralCategory.OTHER.ordinal()] == null)
+                return null;
+
+            long[] values = new long[exactValues.size()];
+            for (int value = 0; value < values.length; value++)
+                values[value] = exactValues.get(value);
+            return new Plural(token, values, exactBranches.toArray(EMPTY), categoryBranches);
+        }
+
+        private static String[] split(String branch) {
+            List<String> parts = new ArrayList<>();
+            int start = 0, index;
+            while ((index = branch.indexOf('#', start)) != -1) {
+                parts.add(branch.substring(start, index));
+                start = index + 1;
+            }
+            parts.add(branch.substring(start));
+            return parts.toArray(new String[0]);
+        }
+
+        @Override
+        void append(StringBuilder builder, LocaleFormat format, long value) {
+            String[] branch = select(format, value, false);
+            for (int index = 0; index < branch.length; index++) {
+                if (index > 0)
+                    format.appendInteger(builder, value);
+                builder.append(branch[index]);
+            }
+        }
+
+        @Override
+        void append(StringBuilder builder, LocaleFormat format, double value) {
+            if (value == (long) value) {
+                append(builder, format, (long) value);
+                return;
+            }
+            String[] branch = select(format, (long) value, true);
+            for (int index = 0; index < branch.length; index++) {
+                if (index > 0)
+                    format.appendNumber(builder, value);
+                builder.append(branch[index]);
+            }
+        }
+
+        private String[] select(LocaleFormat format, long integer, boolean fraction) {
+            if (!fraction) {
+                for (int index = 0; index < exactValues.length; index++) {
+                    if (exactValues[index] == integer)
+                        return exactBranches[index];
+                }
+            }
+            String[] branch = categoryBranches[format.getPluralRule().select(integer, fraction).ordinal()];
+            return branch == null ? categoryBranches[PluralCategory.OTHER.ordinal()] : branch;
+        }
+
+        @Override
+        PlaceholderFormat colored(char altColorChar) {
+            String[][] exactBranches = new String[this.exactBranches.length][], categoryBranches = new String[this.categoryBranches.length][];
+            for (int index = 0; index < exactBranches.length; index++)
+                exactBranches[index] = colored(altColorChar, this.exactBranches[index]);
+            for (int index = 0; index < categoryBranches.length; index++)
+                categoryBranches[index] = colored(altColorChar, this.categoryBranches[index]);
+            return new Plural(ChatColor.translateAlternateColorCodes(altColorChar, token), exactValues, exactBranches, categoryBranches);
+        }
+
+        private static String[] colored(char altColorChar, String[] branch) {
+            if (branch == null)
+                return null;
+            String[] colored = new String[branch.length];
+            for (int index = 0; index < branch.length; index++)
+                colored[index] = ChatColor.translateAlternateColorCodes(altColorChar, branch[index]);
+            return colored;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The cardinal plural rules of the most common languages, simplified from the CLDR rules to integers and numbers with a fraction
+ */
+enum PluralRule {
+
+    /**
+     * Languages without plural forms, e.g. Japanese or Chinese
+     */
+    NONE {
+        @Override
+        PluralCategory select(long integer, boolean fraction) {
+            return PluralCategory.OTHER;
+        }
+    },
+    /**
+     * Languages with a singular for exactly one, e.g. English or German
+     */
+    ONE {
+        @Override
+        PluralCategory select(long integer, boolean fraction) {
+            return integer == 1 && !fraction ? PluralCategory.ONE : PluralCategory.OTHER;
+        }
+    },
+    /**
+     * Languages that use the singular for zero and one, including fractions, e.g. French
+     */
+    ZERO_ONE {
+        @Override
+        PluralCategory select(long integer, boolean fraction) {
+            return integer == 0 || integer == 1 ? PluralCategory.ONE : PluralCategory.OTHER;
+        }
+    },
+    /**
+     * East Slavic languages, e.g. Russian or Ukrainian
+     */
+    EAST_SLAVIC {
+        @Override
+        PluralCategory select(long integer, boolean fraction) {
+            if (fraction)
+                return PluralCategory.OTHER;
+            long mod10 = Math.abs(integer % 10), mod100 = Math.abs(integer % 100);
+            if (mod10 == 1 && mod100 != 11)
+                return PluralCategory.ONE;
+            if (mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14))
+                return PluralCategory.FEW;
+            return PluralCategory.MANY;
+        }
+    },
+    POLISH {
+        @Override
+        PluralCategory select(long integer, boolean fraction) {
+            if (fraction)
+                return PluralCategory.OTHER;
+            if (integer == 1)
+                return PluralCategory.ONE;
+            long mod10 = Math.abs(integer % 10), mod100 = Math.abs(integer % 100);
+            if (mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14))
+                return PluralCategory.FEW;
+            return PluralCategory.MANY;
+        }
+    },
+    /**
+     * Czech and Slovak
+     */
+    WEST_SLAVIC {
+        @Override
+        PluralCategory select(long integer, boolean fraction) {
+            if (fraction)
+                return PluralCategory.MANY;
+            if (integer == 1)
+                return PluralCategory.ONE;
+            return integer >= 2 && integer <= 4 ? PluralCategory.FEW : PluralCategory.OTHER;
+        }
+    },
+    ARABIC {
+        @Override
+        PluralCategory select(long integer, boolean fraction) {
+            if (fraction)
+                return PluralCategory.OTHER;
+            if (integer == 0)
+                return PluralCategory.ZERO;
+            if (integer == 1)
+                return PluralCategory.ONE;
+            if (integer == 2)
+                return PluralCategory.TWO;
+            long mod100 = Math.abs(integer % 100);
+            if (mod100 >= 3 && mod100 <= 10)
+                return PluralCategory.FEW;
+            return mod100 >= 11 ? PluralCategory.MANY : PluralCategory.OTHER;
+        }
+    };
+
+    private static final Map<String, PluralRule> rules = new HashMap<>();
+
+    static {
+        for (String language : new String[]{"ja", "zh", "ko", "vi", "th", "id", "ms", "lo", "my"})
+            rules.put(language, NONE);
+        for (String language : new String[]{"fr", "pt", "hy", "kab"})
+            rules.put(language, ZERO_ONE);
+        for (String language : new String[]{"ru", "uk", "be"})
+            rules.put(language, EAST_SLAVIC);
+        rules.put("pl", POLISH);
+        rules.put("cs", WEST_SLAVIC);
+        rules.put("sk", WEST_SLAVIC);
+        rules.put("ar", ARABIC);
+    }
+
+    /**
+     * @param language The ISO 639 language code
+     * @return The rule of the language, or {@link #ONE} for languages not in the table
+     */
+    static PluralRule forLanguage(String language) {
+        return rules.getOrDefault(language, ONE);
+    }
+
+    /**
+     * @param integer  The integer part of the number
+     * @param fraction Whether the number has a non-zero fraction
+     * @return The plural category of the number
+     */
+    abstract PluralCategory select(long integer, boolean fraction);
+
+    enum PluralCategory {
+        ZERO, ONE, TWO, FEW, MANY, OTHER;
+
+        private static final PluralCategory[] values = values();
+
+        /**
+         * @return The category with the lowercase name, or <code>null</code> if there is none
+         */
+        static PluralCategory byName(String name) {
+            for (PluralCategory category : values) {
+                if (category.name().equalsIgnoreCase(name))
+                    return category;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A reusable set of replacements for the placeholders of a {@link MessageTemplate}.
+ * <br><br>
+ * Primitive values are stored as they are and appended directly while rendering, so neither boxing nor an intermediate string is
+ * needed. Instances are meant to be reused with {@link #clear()} and are not thread-safe.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class TemplateArguments {
+
+    private static final byte STRING = 0, LONG = 1, DOUBLE = 2;
+
+    private String[] targets = new String[4];
+    private byte[] types = new byte[4];
+    private String[] strings = new String[4];
+    private long[] longs = new long[4];
+    private double[] doubles = new double[4];
+    private int size;
+
+    /**
+     * Removes all replacements, but keeps the allocated memory for reuse
+     *
+     * @return <code>this</code> for a builder like usage
+     * @since 1.0.0
+     */
+    public TemplateArguments clear() {
+        Arrays.fill(targets, 0, size, null);
+        Arrays.fill(strings, 0, size, null);
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Sets the replacement of the target to the provided string
+     *
+     * @param target The placeholder to replace, e.g. <code>%player%</code>
+     * @param value  The replacement
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If the target or the value is null
+     * @since 1.0.0
+     */
+    public TemplateArguments set(String target, String value) {
+        int index = slot(target);
+        types[index] = STRING;
+        strings[index] = checkNotNull(value, "The replacement cannot be null");
+        return this;
+    }
+
+    /**
+     * Sets the replacement of the target to the provided number
+     *
+     * @param target The placeholder to replace, e.g. <code>%amount%</code>
+     * @param value  The replacement
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If the target is null
+     * @since 1.0.0
+     */
+    public TemplateArguments set(String target, long value) {
+        int index = slot(target);
+        types[index] = LONG;
+        strings[index] = null;
+        longs[index] = value;
+        return this;
+    }
+
+    /**
+     * Sets the replacement of the target to the provided number
+     *
+     * @param target The placeholder to replace, e.g. <code>%balance%</code>
+     * @param value  The replacement
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If the target is null
+     * @since 1.0.0
+     */
+    public TemplateArguments set(String target, double value) {
+        int index = slot(target);
+        types[index] = DOUBLE;
+        strings[index] = null;
+        doubles[index] = value;
+        return this;
+    }
+
+    /**
+     * Sets the replacements of all targets of the other arguments, overriding replacements of the same targets
+     *
+     * @param arguments The arguments to copy the replacements from
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If the arguments are null
+     * @since 1.0.0
+     */
+    public TemplateArguments setAll(TemplateArguments arguments) {
+        checkNotNull(arguments, "The arguments to copy cannot be null");
+        for (int other = 0; other < arguments.size; other++) {
+            int index = slot(arguments.targets[other]);
+            types[index] = arguments.types[other];
+            strings[index] = arguments.strings[other];
+            longs[index] = arguments.longs[other];
+            doubles[index] = arguments.doubles[other];
+        }
+        return this;
+    }
+
+    /**
+     * @return <code>true</code> if no replacements are set
+     * @since 1.0.0
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int slot(String target) {
+        checkNotNull(target, "The target cannot be null");
+        int index = indexOf(target);
+        if (index != -1)
+            return index;
+
+        if (size == targets.length) {
+            int capacity = size * 2;
+            targets = Arrays.copyOf(targets, capacity);
+            types = Arrays.copyOf(types, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+            longs = Arrays.copyOf(longs, capacity);
+            doubles = Arrays.copyOf(doubles, capacity);
+        }
+        targets[size] = target;
+        return size++;
+    }
+
+    int indexOf(String target) {
+        for (int index = 0; index < size; index++) {
+            if (targets[index].equals(target))
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * @return <code>false</code> if no replacement is set for the target
+     */
+    boolean appendTo(String target, StringBuilder builder, PlaceholderFormat format, LocaleFormat localeFormat) {
+        int index = indexOf(target);
+        if (index == -1)
+            return false;
+
+        switch (types[index]) {
+            case LONG:
+                format.append(builder, localeFormat, longs[index]);
+                break;
+            case DOUBLE:
+                format.append(builder, localeFormat, doubles[index]);
+                break;
+            default:
+                format.append(builder, localeFormat, strings[index]);
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>false</code> if no replacement is set for the target
+     */
+    boolean appendTo(String target, StringBuilder builder) {
+        int index = indexOf(target);
+        if (index == -1)
+            return false;
+
+        switch (types[index]) {
+            case LONG:
+                builder.append(longs[index]);
+                break;
+            case DOUBLE:
+                builder.append(doubles[index]);
+                break;
+            default:
+                builder.append(strings[index]);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Counts how often translations are looked up and how long rendering them takes.
+ * <br><br>
+ * Metrics are disabled unless an instance is set using {@link LanguageStorage#setMetrics(TranslationMetrics)}, in which case the
+ * only overhead is a single null check. All counters are {@link LongAdder}s, so recording never blocks and does not contend even
+ * if many threads render translations at the same time. Use {@link #snapshot()} to export the current values.
+ * <br><br>
+ * The keys are counted by their ids, so an instance can only be set in one language store.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class TranslationMetrics {
+
+    private final KeyCounters keyLookups = new KeyCounters();
+    private final KeyCounters missingKeys = new KeyCounters();
+    private final Map<String, LongAdder> languageLookups = new ConcurrentHashMap<>();
+    private final LatencyHistogram messageLatency = new LatencyHistogram();
+    private final LatencyHistogram itemLatency = new LatencyHistogram();
+    private volatile KeyRegistry keyRegistry;
+
+    /**
+     * Records that the translation of the key has been looked up in the language
+     *
+     * @param language The language the translation has been looked up in
+     * @param keyId    The id of the translation key in the key registry of the language store
+     * @throws NullPointerException If the language is null
+     * @see LanguageStorage#getKeyRegistry()
+     * @since 1.0.0
+     */
+    public void recordLookup(Language language, int keyId) {
+        keyLookups.get(keyId).increment();
+        String languageKey = checkNotNull(language, "The language cannot be null").getLanguageKey();
+        LongAdder counter = languageLookups.get(languageKey);
+        if (counter == null)
+            counter = languageLookups.computeIfAbsent(languageKey, key -> new LongAdder());
+        counter.increment();
+    }
+
+    /**
+     * Records that the language did not contain a translation for the key and a fallback has been used instead
+     *
+     * @param keyId The id of the translation key in the key registry of the language store
+     * @see LanguageStorage#getKeyRegistry()
+     * @since 1.0.0
+     */
+    public void recordMissing(int keyId) {
+        missingKeys.get(keyId).increment();
+    }
+
+    /**
+     * Binds these metrics to the key registry of the language store they are set in
+     */
+    synchronized void bind(KeyRegistry keyRegistry) {
+        checkState(this.keyRegistry == null || this.keyRegistry == keyRegistry,
+                "The metrics are already used by another language store");
+        this.keyRegistry = keyRegistry;
+    }
+
+    /**
+     * @return The histogram of the time it takes to render translated messages
+     * @since 1.0.0
+     */
+    public LatencyHistogram getMessageLatency() {
+        return messageLatency;
+    }
+
+    /**
+     * @return The histogram of the time it takes to create translated item stacks
+     * @since 1.0.0
+     */
+    public LatencyHistogram getItemLatency() {
+        return itemLatency;
+    }
+
+    /**
+     * @return A copy of the current values of all metrics
+     * @since 1.0.0
+     */
+    public Snapshot snapshot() {
+        Map<String, Long> languages = new HashMap<>(languageLookups.size() * 4 / 3 + 1);
+        languageLookups.forEach((languageKey, counter) -> languages.put(languageKey, counter.sum()));
+        KeyRegistry keyRegistry = this.keyRegistry;
+        return new Snapshot(keyLookups.snapshot(keyRegistry), languages, missingKeys.snapshot(keyRegistry),
+                messageLatency.snapshot(), itemLatency.snapshot());
+    }
+
+    /**
+     * Counters indexed by the dense ids of a {@link KeyRegistry}, created the first time a key is recorded
+     */
+    private static final class KeyCounters {
+
+        private volatile LongAdder[] counters = new LongAdder[64];
+
+        private LongAdder get(int id) {
+            LongAdder[] counters = this.counters;
+            if (id >= 0 && id < counters.length) {
+                LongAdder counter = counters[id];
+                if (counter != null)
+                    return counter;
+            }
+            return create(id);
+        }
+
+        private synchronized LongAdder create(int id) {
+            LongAdder[] counters = this.counters;
+            if (id >= counters.length)
+                counters = Arrays.copyOf(counters, Math.max(id + 1, counters.length * 2));
+            LongAdder counter = counters[id];
+            if (counter == null) {
+                counter = new LongAdder();
+                counters[id] = counter;
+            }
+            // The volatile write publishes the new counter to threads reading the array
+            this.counters = counters;
+            return counter;
+        }
+
+        private Map<String, Long> snapshot(KeyRegistry keyRegistry) {
+            LongAdder[] counters = this.counters;
+            Map<String, Long> snapshot = new HashMap<>();
+            for (int id = 0; id < counters.length; id++) {
+                LongAdder counter = counters[id];
+                String key = keyRegistry == null ? null : keyRegistry.getKey(id);
+                if (counter != null && key != null)
+                    snapshot.put(key, counter.sum());
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * An immutable copy of the values of the metrics
+     *
+     * @author Lukas Planz
+     * @since 1.0.0
+     */
+    public static final class Snapshot {
+
+        private final Map<String, Long> keyLookups, languageLookups, missingKeys;
+        private final LatencyHistogram.Snapshot messageLatency, itemLatency;
+
+        private Snapshot(Map<String, Long> keyLookups, Map<String, Long> languageLookups, Map<String, Long> missingKeys,
+                         LatencyHistogram.Snapshot messageLatency, LatencyHistogram.Snapshot itemLatency) {
+            this.keyLookups = Collections.unmodifiableMap(keyLookups);
+            this.languageLookups = Collections.unmodifiableMap(languageLookups);
+            this.missingKeys = Collections.unmodifiableMap(missingKeys);
+            this.messageLatency = messageLatency;
+            this.itemLatency = itemLatency;
+        }
+
+        /**
+         * @return How often the translations have been looked up, by their keys
+         * @since 1.0.0
+         */
+        public Map<String, Long> getKeyLookups() {
+            return keyLookups;
+        }
+
+        /**
+         * @return How often translations have been looked up in the languages, by their language keys
+         * @since 1.0.0
+         */
+        public Map<String, Long> getLanguageLookups() {
+            return languageLookups;
+        }
+
+        /**
+         * @return How often a fallback has been used because a language did not contain the translation, by the keys
+         * @since 1.0.0
+         */
+        public Map<String, Long> getMissingKeys() {
+            return missingKeys;
+        }
+
+        /**
+         * @return The sum of all values of {@link #getMissingKeys()}
+         * @since 1.0.0
+         */
+        public long getMissingTotal() {
+            long total = 0;
+            for (long count : missingKeys.values())
+                total += count;
+            return total;
+        }
+
+        /**
+         * @return The histogram of the time it took to render translated messages
+         * @since 1.0.0
+         */
+        public LatencyHistogram.Snapshot getMessageLatency() {
+            return messageLatency;
+        }
+
+        /**
+         * @return The histogram of the time it took to create translated item stacks
+         * @since 1.0.0
+         */
+        public LatencyHistogram.Snapshot getItemLatency() {
+            return itemLatency;
+        }
+    }
+}
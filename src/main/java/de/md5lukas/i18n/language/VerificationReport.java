@@ -0,0 +1,140 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of {@link LanguageStorage#verify(boolean)}, which lists every problem found in the languages of a language store.
+ * <br><br>
+ * All maps are sorted by the language keys and the translation keys, so reports can be compared with each other, and
+ * {@link #toJson()} serializes the report for tools that check it automatically.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class VerificationReport {
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final int verifiedLanguages;
+    private final int compiledTemplates;
+    private final Map<String, List<String>> missingKeys;
+    private final Map<String, Map<String, List<String>>> unusedPlaceholders;
+    private final Map<String, Map<String, List<String>>> undeclaredPlaceholders;
+
+    VerificationReport(int verifiedLanguages, int compiledTemplates, Map<String, List<String>> missingKeys,
+                       Map<String, Map<String, List<String>>> unusedPlaceholders,
+                       Map<String, Map<String, List<String>>> undeclaredPlaceholders) {
+        this.verifiedLanguages = verifiedLanguages;
+        this.compiledTemplates = compiledTemplates;
+        this.missingKeys = Collections.unmodifiableMap(missingKeys);
+        this.unusedPlaceholders = Collections.unmodifiableMap(unusedPlaceholders);
+        this.undeclaredPlaceholders = Collections.unmodifiableMap(undeclaredPlaceholders);
+    }
+
+    /**
+     * @return The amount of languages that have been verified
+     * @since 1.0.0
+     */
+    public int getVerifiedLanguages() {
+        return verifiedLanguages;
+    }
+
+    /**
+     * @return The amount of translations of the verified languages, including the ones filled in from fallback languages, which
+     * are all compiled now
+     * @since 1.0.0
+     */
+    public int getCompiledTemplates() {
+        return compiledTemplates;
+    }
+
+    /**
+     * The declared keys every language is missing. These translations fall back to other languages or to the key itself.
+     *
+     * @return A read-only map with the language keys as keys and the missing translation keys as values
+     * @see LanguageStorage#declareKey(String)
+     * @since 1.0.0
+     */
+    public Map<String, List<String>> getMissingKeys() {
+        return missingKeys;
+    }
+
+    /**
+     * The declared placeholders that do not appear in the translations, so passing them is wasted work
+     *
+     * @return A read-only map with the language keys as keys and maps of the translation keys to the unused placeholders as values
+     * @see LanguageStorage#declarePlaceholders(String, java.util.Collection)
+     * @since 1.0.0
+     */
+    public Map<String, Map<String, List<String>>> getUnusedPlaceholders() {
+        return unusedPlaceholders;
+    }
+
+    /**
+     * The placeholders that appear in the translations, but have not been declared, so they are never replaced
+     *
+     * @return A read-only map with the language keys as keys and maps of the translation keys to the undeclared placeholders as
+     * values
+     * @see LanguageStorage#declarePlaceholders(String, java.util.Collection)
+     * @since 1.0.0
+     */
+    public Map<String, Map<String, List<String>>> getUndeclaredPlaceholders() {
+        return undeclaredPlaceholders;
+    }
+
+    /**
+     * @return <code>true</code> if no problems have been found
+     * @since 1.0.0
+     */
+    public boolean isValid() {
+        return missingKeys.isEmpty() && unusedPlaceholders.isEmpty() && undeclaredPlaceholders.isEmpty();
+    }
+
+    /**
+     * Serializes this report to JSON with the properties <code>verifiedLanguages</code>, <code>compiledTemplates</code>,
+     * <code>missingKeys</code>, <code>unusedPlaceholders</code> and <code>undeclaredPlaceholders</code>
+     *
+     * @return The report as JSON
+     * @since 1.0.0
+     */
+    public String toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("verifiedLanguages", verifiedLanguages);
+        json.put("compiledTemplates", compiledTemplates);
+        json.put("missingKeys", missingKeys);
+        json.put("unusedPlaceholders", unusedPlaceholders);
+        json.put("undeclaredPlaceholders", undeclaredPlaceholders);
+        return gson.toJson(json);
+    }
+
+    @Override
+    public String toString() {
+        return "VerificationReport{verifiedLanguages=" + verifiedLanguages + ", compiledTemplates=" + compiledTemplates
+                + ", missingKeys=" + missingKeys + ", unusedPlaceholders=" + unusedPlaceholders + ", undeclaredPlaceholders="
+                + undeclaredPlaceholders + '}';
+    }
+}
@@ -18,6 +18,7 @@
 
 package de.md5lukas.i18n.translations;
 
+import de.md5lukas.i18n.language.MessageTemplate;
 import net.md_5.bungee.api.ChatColor;
 
 /**
@@ -32,12 +33,15 @@ public final class ColorCodeSettings {
 
     private boolean enabled;
     private char altColorChar;
+    private boolean colorReplacements;
+    private int modifications;
 
     /**
      * Creates a new settings object with the following default values:
      * <ul>
      *     <li>enabled = true</li>
      *     <li>altColorChar = {@literal '&'}</li>
+     *     <li>colorReplacements = true</li>
      * </ul>
      *
      * @since 1.0.0
@@ -45,6 +49,7 @@ public final class ColorCodeSettings {
     public ColorCodeSettings() {
         enabled = true;
         altColorChar = '&';
+        colorReplacements = true;
     }
 
     /**
@@ -56,6 +61,7 @@ public final class ColorCodeSettings {
      */
     public ColorCodeSettings setEnabled(boolean enabled) {
         this.enabled = enabled;
+        modifications++;
         return this;
     }
 
@@ -69,9 +75,43 @@ public final class ColorCodeSettings {
      */
     public ColorCodeSettings setAltColorChar(char altColorChar) {
         this.altColorChar = altColorChar;
+        modifications++;
         return this;
     }
 
+    /**
+     * Sets whether color codes in the replacements should be translated as well. If disabled, replacements are inserted verbatim,
+     * which is useful if they contain user input.
+     *
+     * @param colorReplacements The new value
+     * @return <code>this</code> for a builder like usage
+     * @since 1.0.0
+     */
+    public ColorCodeSettings setColorReplacements(boolean colorReplacements) {
+        this.colorReplacements = colorReplacements;
+        modifications++;
+        return this;
+    }
+
+    /**
+     * Used by the render caches to notice that the settings have been changed after they have been used
+     */
+    int getModifications() {
+        return modifications;
+    }
+
+    boolean isColorReplacements() {
+        return colorReplacements;
+    }
+
+    MessageTemplate apply(MessageTemplate template) {
+        if (enabled) {
+            return template.colored(altColorChar, colorReplacements);
+        } else {
+            return template;
+        }
+    }
+
     String apply(String input) {
         if (enabled) {
             return ChatColor.translateAlternateColorCodes(altColorChar, input);
@@ -0,0 +1,200 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.language.MessageTemplate;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Renders the item translations of a whole inventory menu at once.
+ * <br><br>
+ * The language of the player is resolved only once per render and every slot remembers the item stack it rendered last for every
+ * language. As long as the translations, the material, the color code settings and the targets and replacements of a slot have
+ * not changed, a copy of the remembered item stack is returned instead of rendering it again.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class ItemMenu {
+
+    private static final String[] NO_REPLACEMENTS = new String[0];
+
+    private final LanguageStorage languageStorage;
+    private final Slot[] slots;
+
+    /**
+     * Creates a new empty menu
+     *
+     * @param languageStorage The language store to resolve the languages of the players with
+     * @param size            The amount of slots of the menu, usually the size of the inventory
+     * @throws NullPointerException     If the language store is null
+     * @throws IllegalArgumentException If the size is negative
+     * @since 1.0.0
+     */
+    public ItemMenu(LanguageStorage languageStorage, int size) {
+        this.languageStorage = checkNotNull(languageStorage, "The language store cannot be null");
+        checkArgument(size >= 0, "The size of the menu cannot be negative");
+        this.slots = new Slot[size];
+    }
+
+    /**
+     * @return The amount of slots of this menu
+     * @since 1.0.0
+     */
+    public int getSize() {
+        return slots.length;
+    }
+
+    /**
+     * Sets the item translation of the slot, or clears the slot if the item translation is null
+     *
+     * @param slot            The slot
+     * @param itemTranslation The item translation to render in the slot
+     * @return <code>this</code> for a builder like usage
+     * @throws IndexOutOfBoundsException If the slot does not exist in this menu
+     * @since 1.0.0
+     */
+    public ItemMenu setItem(int slot, ItemTranslation itemTranslation) {
+        checkSlot(slot);
+        slots[slot] = itemTranslation == null ? null : new Slot(itemTranslation);
+        return this;
+    }
+
+    /**
+     * Renders every slot without any targets and replacements
+     *
+     * @param player The player to render the menu for
+     * @return The rendered items, indexed by their slots
+     * @throws NullPointerException If the player is null
+     * @see #render(Player, ItemTranslationTAR[])
+     * @since 1.0.0
+     */
+    public ItemStack[] render(Player player) {
+        return render(player, null);
+    }
+
+    /**
+     * Renders every slot for the language of the player.
+     * <br><br>
+     * The returned array can be passed to <code>Inventory.setContents</code> directly. Empty slots are <code>null</code>. Every
+     * item stack is a copy of the one cached by this menu, so it can be modified before it is put into the inventory.
+     *
+     * @param player                 The player to render the menu for
+     * @param targetsAndReplacements The targets and replacements of every slot, indexed by the slots. The array may be
+     *                               <code>null</code>, shorter than the menu or contain <code>null</code> for slots without
+     *                               targets and replacements.
+     * @return The rendered items, indexed by their slots
+     * @throws NullPointerException If the player is null
+     * @since 1.0.0
+     */
+    public ItemStack[] render(Player player, ItemTranslationTAR[] targetsAndReplacements) {
+        checkNotNull(player, "The player to render the menu for cannot be null");
+
+        Language language = languageStorage.getLanguage(player);
+        ItemStack[] contents = new ItemStack[slots.length];
+        for (int index = 0; index < slots.length; index++) {
+            Slot slot = slots[index];
+            if (slot == null)
+                continue;
+            ItemTranslationTAR slotTAR = targetsAndReplacements != null && index < targetsAndReplacements.length
+                    ? targetsAndReplacements[index] : null;
+            contents[index] = slot.render(player, language, slotTAR);
+        }
+        return contents;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= slots.length)
+            throw new IndexOutOfBoundsException("The slot " + slot + " does not exist in a menu of the size " + slots.length);
+    }
+
+    private static final class Slot {
+
+        private final ItemTranslation itemTranslation;
+        /**
+         * The last rendered item of every language, by the language keys
+         */
+        private final Map<String, CachedSlot> rendered = new ConcurrentHashMap<>();
+
+        private Slot(ItemTranslation itemTranslation) {
+            this.itemTranslation = itemTranslation;
+        }
+
+        private ItemStack render(Player player, Language language, ItemTranslationTAR targetsAndReplacements) {
+            String[] displayNameTAR = NO_REPLACEMENTS, descriptionTAR = NO_REPLACEMENTS;
+            if (targetsAndReplacements != null) {
+                displayNameTAR = targetsAndReplacements.getDisplayName();
+                descriptionTAR = targetsAndReplacements.getDescription();
+            }
+            // Provided values are compared like passed ones, so the cached item is only reused while they do not change
+            displayNameTAR = itemTranslation.resolveDisplayNamePlaceholders(player, language, displayNameTAR);
+            descriptionTAR = itemTranslation.resolveDescriptionPlaceholders(player, language, descriptionTAR);
+
+            MessageTemplate displayName = itemTranslation.getDisplayNameTemplate(language),
+                    description = itemTranslation.getDescriptionTemplate(language);
+            Material material = itemTranslation.getMaterial();
+            int modifications = itemTranslation.getColorCodeSettings().getModifications();
+
+            CachedSlot cached = rendered.get(language.getLanguageKey());
+            if (cached != null && cached.displayName == displayName && cached.description == description
+                    && cached.material == material && cached.modifications == modifications
+                    && Arrays.equals(cached.displayNameTAR, displayNameTAR) && Arrays.equals(cached.descriptionTAR, descriptionTAR))
+                return cached.stack.clone();
+
+            ItemStack stack = itemTranslation.createStack(displayName, description, language.getLocale(), material, displayNameTAR,
+                    descriptionTAR);
+            // The arrays are copied, because the caller may reuse them for the next render
+            rendered.put(language.getLanguageKey(), new CachedSlot(displayName, description, material, modifications,
+                    displayNameTAR.clone(), descriptionTAR.clone(), stack));
+            // The cached stack is never handed out, because the caller may modify the returned one
+            return stack.clone();
+        }
+    }
+
+    private static final class CachedSlot {
+
+        private final MessageTemplate displayName, description;
+        private final Material material;
+        private final int modifications;
+        private final String[] displayNameTAR, descriptionTAR;
+        private final ItemStack stack;
+
+        private CachedSlot(MessageTemplate displayName, MessageTemplate description, Material material, int modifications,
+                           String[] displayNameTAR, String[] descriptionTAR, ItemStack stack) {
+            this.displayName = displayName;
+            this.description = description;
+            this.material = material;
+            this.modifications = modifications;
+            this.displayNameTAR = displayNameTAR;
+            this.descriptionTAR = descriptionTAR;
+            this.stack = stack;
+        }
+    }
+}
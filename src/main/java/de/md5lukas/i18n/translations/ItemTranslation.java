@@ -20,12 +20,26 @@ package de.md5lukas.i18n.translations;
 
 import de.md5lukas.i18n.language.Language;
 import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.language.MessageTemplate;
+import de.md5lukas.i18n.language.TranslationMetrics;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -38,13 +52,25 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public final class ItemTranslation {
 
+    private static final String[] NO_REPLACEMENTS = new String[0];
+
     private final LanguageStorage languageStorage;
     private final Supplier<Material> materialSupplier;
     private final String displayNameKey;
     private final String descriptionKey;
+    private final int displayNameKeyId, descriptionKeyId;
 
     private final ColorCodeSettings colorCodeSettings;
 
+    /**
+     * The fully translated item stacks by the key of the language and the material they have been created for
+     */
+    private final Map<String, Map<Material, ItemPrototype>> prototypes = new ConcurrentHashMap<>();
+    /**
+     * The last description rendered with replacements by the key of the language, to render only lines with changed values again
+     */
+    private final Map<String, RenderedDescription> descriptions = new ConcurrentHashMap<>();
+
     /**
      * Creates a new translation helper for item stacks using the language store, the material supplier and the keys for the configuration
      *
@@ -62,7 +88,11 @@ public final class ItemTranslation {
         this.materialSupplier = checkNotNull(materialSupplier, "The material supplier cannot be null");
         this.displayNameKey = checkNotNull(displayNameKey, "The display name key cannot be null");
         this.descriptionKey = checkNotNull(descriptionKey, "The description key cannot be null");
+        this.displayNameKeyId = languageStorage.getKeyRegistry().register(displayNameKey);
+        this.descriptionKeyId = languageStorage.getKeyRegistry().register(descriptionKey);
         this.colorCodeSettings = checkNotNull(colorCodeSettings, "The color code settings cannot be null");
+        languageStorage.declareKey(displayNameKey);
+        languageStorage.declareKey(descriptionKey);
     }
 
     /**
@@ -112,6 +142,34 @@ public final class ItemTranslation {
         this(languageStorage, materialSupplier, key, ColorCodeSettings.DEFAULT);
     }
 
+    /**
+     * Declares the placeholders passed for the display name, so {@link LanguageStorage#verify(boolean)} can check them
+     *
+     * @param placeholders The placeholders passed for the display name, e.g. <code>%name%</code>
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If any of the placeholders are null
+     * @see LanguageStorage#declarePlaceholders(String, Collection)
+     * @since 1.0.0
+     */
+    public ItemTranslation declareDisplayNamePlaceholders(String... placeholders) {
+        languageStorage.declarePlaceholders(displayNameKey, Arrays.asList(placeholders));
+        return this;
+    }
+
+    /**
+     * Declares the placeholders passed for the description, so {@link LanguageStorage#verify(boolean)} can check them
+     *
+     * @param placeholders The placeholders passed for the description, e.g. <code>%name%</code>
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If any of the placeholders are null
+     * @see LanguageStorage#declarePlaceholders(String, Collection)
+     * @since 1.0.0
+     */
+    public ItemTranslation declareDescriptionPlaceholders(String... placeholders) {
+        languageStorage.declarePlaceholders(descriptionKey, Arrays.asList(placeholders));
+        return this;
+    }
+
     /**
      * Creates an item stack using both translation keys provided at creation and the language of the player
      *
@@ -124,7 +182,14 @@ public final class ItemTranslation {
     }
 
     /**
-     * Creates an item stack using both translation keys provided at creation and the language of the player
+     * Creates an item stack using both translation keys provided at creation and the language of the player.
+     * <br><br>
+     * If no targets and replacements are provided, the fully translated item stack is built once per language and material and
+     * a clone of it is returned. The cache is invalidated automatically when the translations used by the item actually change.
+     * Otherwise only the lines of the description with placeholders whose replacements have changed since the last time the item has
+     * been rendered in the language are rendered again.
+     * <br><br>
+     * Placeholders of the translations that have not been passed are filled in by the placeholder providers of the language store.
      *
      * @param player                 The player to use the language from
      * @param targetsAndReplacements The targets and replacements object containing both display name and description substitutions
@@ -135,26 +200,294 @@ public final class ItemTranslation {
     public ItemStack getStack(Player player, ItemTranslationTAR targetsAndReplacements) {
         checkNotNull(player, "The player to get the stack for cannot be null");
 
-        Language language = languageStorage.getLanguage(player);
+        TranslationMetrics metrics = languageStorage.getMetrics();
+        if (metrics == null)
+            return createStack(player, languageStorage.getLanguage(player), targetsAndReplacements);
 
-        ItemStack stack = new ItemStack(materialSupplier.get());
-        ItemMeta meta = stack.getItemMeta();
+        long start = System.nanoTime();
+        ItemStack stack = createStack(player, languageStorage.getLanguage(player), targetsAndReplacements);
+        metrics.getItemLatency().record(System.nanoTime() - start);
+        return stack;
+    }
+
+    private ItemStack createStack(Player player, Language language, ItemTranslationTAR targetsAndReplacements) {
+        String[] displayNameTAR = NO_REPLACEMENTS, descriptionTAR = NO_REPLACEMENTS;
+        if (targetsAndReplacements != null) {
+            displayNameTAR = targetsAndReplacements.getDisplayName();
+            descriptionTAR = targetsAndReplacements.getDescription();
+        }
+        return createStack(language, resolveDisplayNamePlaceholders(player, language, displayNameTAR),
+                resolveDescriptionPlaceholders(player, language, descriptionTAR));
+    }
 
-        String displayName = language.getTranslation(displayNameKey), description = language.getTranslation(descriptionKey);
+    private ItemStack createStack(Language language, String[] displayNameTAR, String[] descriptionTAR) {
+        Material material = materialSupplier.get();
+        MessageTemplate displayName = languageStorage.getTemplate(language, displayNameKeyId),
+                description = languageStorage.getTemplate(language, descriptionKeyId);
 
-        String[] displayNameTAR, descriptionTAR;
-        if (targetsAndReplacements == null) {
-            displayNameTAR = descriptionTAR = new String[] {};
-        } else {
+        if (displayNameTAR.length == 0 && descriptionTAR.length == 0)
+            return getPrototype(language, displayName, description, material).clone();
+
+        Locale locale = language.getLocale();
+        return createStack(material, StringHelper.render(displayName, locale, colorCodeSettings, displayNameTAR),
+                renderDescription(language, description, descriptionTAR));
+    }
+
+    private ItemStack getPrototype(Language language, MessageTemplate displayName, MessageTemplate description, Material material) {
+        Map<Material, ItemPrototype> byMaterial = prototypes.get(language.getLanguageKey());
+        if (byMaterial == null) {
+            byMaterial = new ConcurrentHashMap<>();
+            Map<Material, ItemPrototype> previous = prototypes.putIfAbsent(language.getLanguageKey(), byMaterial);
+            if (previous != null)
+                byMaterial = previous;
+        }
+
+        int modifications = colorCodeSettings.getModifications();
+        ItemPrototype prototype = byMaterial.get(material);
+        // A reloaded language still shares the templates if the translations have not changed, so their identity is enough
+        if (prototype == null || prototype.modifications != modifications || prototype.displayName != displayName
+                || prototype.description != description) {
+            prototype = new ItemPrototype(displayName, description, modifications,
+                    createStack(displayName, description, Locale.ROOT, material, NO_REPLACEMENTS, NO_REPLACEMENTS));
+            byMaterial.put(material, prototype);
+        }
+        return prototype.stack;
+    }
+
+    /**
+     * Renders the description line by line like {@link StringHelper#renderLines(MessageTemplate, Locale, ColorCodeSettings,
+     * String...)}, but takes lines whose placeholders have the same replacements as the last time from the last rendering
+     */
+    private List<String> renderDescription(Language language, MessageTemplate description, String[] descriptionTAR) {
+        Locale locale = language.getLocale();
+        if (descriptionTAR.length == 0 || !StringHelper.hasOnlyPlaceholders(description, descriptionTAR))
+            return StringHelper.renderLines(description, locale, colorCodeSettings, descriptionTAR);
+
+        // The lines are cached by the colored template, so the same list means the same translation and color code settings
+        List<MessageTemplate> lines = colorCodeSettings.apply(description).getLines();
+        RenderedDescription previous = descriptions.get(language.getLanguageKey());
+        if (previous != null && (previous.lines != lines || !previous.locale.equals(locale)))
+            previous = null;
+
+        String[][] replacements = new String[lines.size()][];
+        String[] texts = new String[lines.size()];
+        for (int index = 0; index < texts.length; index++) {
+            MessageTemplate line = lines.get(index);
+            replacements[index] = StringHelper.lookupReplacements(line, descriptionTAR);
+            if (previous != null && Arrays.equals(previous.replacements[index], replacements[index])) {
+                texts[index] = previous.texts[index];
+            } else {
+                texts[index] = line.render(locale, descriptionTAR);
+            }
+        }
+        descriptions.put(language.getLanguageKey(), new RenderedDescription(lines, locale, replacements, texts));
+
+        List<String> result = new ArrayList<>(texts.length);
+        for (String text : texts)
+            StringHelper.splitLines(text, result);
+        StringHelper.removeTrailingEmptyLines(result);
+        return result;
+    }
+
+    /**
+     * Creates an item stack for every player, but renders it only once for every distinct language among them. Every player gets
+     * its own copy of the item stack. Players that get values from the placeholder providers get their own rendering.
+     *
+     * @param players                The players to create the item stacks for
+     * @param targetsAndReplacements The targets and replacements object containing both display name and description substitutions
+     * @return A map containing the created item stack of every player
+     * @throws NullPointerException If players or any of the players are null
+     * @since 1.0.0
+     */
+    public Map<Player, ItemStack> getStacks(Collection<? extends Player> players, ItemTranslationTAR targetsAndReplacements) {
+        checkNotNull(players, "The players to get the stacks for cannot be null");
+
+        String[] displayNameTAR = NO_REPLACEMENTS, descriptionTAR = NO_REPLACEMENTS;
+        if (targetsAndReplacements != null) {
             displayNameTAR = targetsAndReplacements.getDisplayName();
             descriptionTAR = targetsAndReplacements.getDescription();
         }
 
-        meta.setDisplayName(colorCodeSettings.apply(StringHelper.multiReplace(displayName, displayNameTAR)));
+        Map<Language, ItemStack> rendered = new IdentityHashMap<>();
+        Map<Player, ItemStack> stacks = new HashMap<>(players.size() * 4 / 3 + 1);
+        for (Player player : players) {
+            Language language = languageStorage.getLanguage(checkNotNull(player, "The player to get the stack for cannot be null"));
+            String[] resolvedDisplayNameTAR = resolveDisplayNamePlaceholders(player, language, displayNameTAR),
+                    resolvedDescriptionTAR = resolveDescriptionPlaceholders(player, language, descriptionTAR);
+            if (resolvedDisplayNameTAR != displayNameTAR || resolvedDescriptionTAR != descriptionTAR) {
+                stacks.put(player, createTimedStack(language, resolvedDisplayNameTAR, resolvedDescriptionTAR));
+                continue;
+            }
+
+            ItemStack stack = rendered.get(language);
+            if (stack == null) {
+                stack = createTimedStack(language, displayNameTAR, descriptionTAR);
+                rendered.put(language, stack);
+                stacks.put(player, stack);
+            } else {
+                stacks.put(player, stack.clone());
+            }
+        }
+        return stacks;
+    }
+
+    private ItemStack createTimedStack(Language language, String[] displayNameTAR, String[] descriptionTAR) {
+        TranslationMetrics metrics = languageStorage.getMetrics();
+        if (metrics == null)
+            return createStack(language, displayNameTAR, descriptionTAR);
+
+        long start = System.nanoTime();
+        ItemStack stack = createStack(language, displayNameTAR, descriptionTAR);
+        metrics.getItemLatency().record(System.nanoTime() - start);
+        return stack;
+    }
+
+    /**
+     * Renders the display name and the description of the item in the language without creating the item stack.
+     * <br><br>
+     * Rendering does not use the server in any way and is thread-safe, so it can be done on any thread. The item stack can then be
+     * created from the result on the main thread using {@link #apply(RenderedItem)}.
+     *
+     * @param language               The language to render the item in
+     * @param targetsAndReplacements The targets and replacements object containing both display name and description substitutions
+     * @return The rendered texts of the item
+     * @throws NullPointerException If the language is null
+     * @since 1.0.0
+     */
+    public RenderedItem render(Language language, ItemTranslationTAR targetsAndReplacements) {
+        checkNotNull(language, "The language to render the item in cannot be null");
+        if (targetsAndReplacements == null)
+            return render(language, NO_REPLACEMENTS, NO_REPLACEMENTS);
+        return render(language, targetsAndReplacements.getDisplayName(), targetsAndReplacements.getDescription());
+    }
+
+    private RenderedItem render(Language language, String[] displayNameTAR, String[] descriptionTAR) {
+        Locale locale = language.getLocale();
+        return new RenderedItem(StringHelper.render(getDisplayNameTemplate(language), locale, colorCodeSettings, displayNameTAR),
+                Collections.unmodifiableList(renderDescription(language, getDescriptionTemplate(language), descriptionTAR)));
+    }
+
+    /**
+     * Creates the item stack from an item rendered by {@link #render(Language, ItemTranslationTAR)}. Creating item stacks uses the
+     * server, so this should only be called on the main thread.
+     *
+     * @param renderedItem The rendered texts of the item
+     * @return A newly created item stack
+     * @throws NullPointerException If the rendered item is null
+     * @since 1.0.0
+     */
+    public ItemStack apply(RenderedItem renderedItem) {
+        checkNotNull(renderedItem, "The rendered item cannot be null");
+        return createStack(materialSupplier.get(), renderedItem.getDisplayName(), renderedItem.getDescription());
+    }
+
+    /**
+     * Does the same as {@link #getStack(Player, ItemTranslationTAR)}, but renders the texts of the item on the executor and creates
+     * the item stack on the main thread afterwards.
+     * <br><br>
+     * The language of the player and the values of the placeholder providers are resolved right away, so this method should be
+     * called on the main thread. The future completes
+     * on the main thread, so the item stack can be put into an inventory in a dependent stage without scheduling another task.
+     *
+     * @param player                 The player to use the language from
+     * @param targetsAndReplacements The targets and replacements object containing both display name and description substitutions
+     * @param executor               The executor to render the texts on
+     * @param plugin                 The plugin to schedule the creation of the item stack for
+     * @return A future that completes on the main thread with the newly created item stack
+     * @throws NullPointerException If the player, the executor or the plugin is null
+     * @see MainThreadExecutor
+     * @since 1.0.0
+     */
+    public CompletableFuture<ItemStack> getStackAsync(Player player, ItemTranslationTAR targetsAndReplacements, Executor executor,
+                                                      Plugin plugin) {
+        checkNotNull(player, "The player to get the stack for cannot be null");
+        checkNotNull(executor, "The executor cannot be null");
+        MainThreadExecutor mainThread = new MainThreadExecutor(plugin);
+
+        Language language = languageStorage.getLanguage(player);
+        // The arrays are taken now, because the targets and replacements object may be changed before the rendering starts
+        String[] displayNameTAR = NO_REPLACEMENTS, descriptionTAR = NO_REPLACEMENTS;
+        if (targetsAndReplacements != null) {
+            displayNameTAR = targetsAndReplacements.getDisplayName().clone();
+            descriptionTAR = targetsAndReplacements.getDescription().clone();
+        }
+        String[] finalDisplayNameTAR = resolveDisplayNamePlaceholders(player, language, displayNameTAR),
+                finalDescriptionTAR = resolveDescriptionPlaceholders(player, language, descriptionTAR);
+        return CompletableFuture.supplyAsync(() -> render(language, finalDisplayNameTAR, finalDescriptionTAR), executor)
+                .thenApplyAsync(this::apply, mainThread);
+    }
+
+    String[] resolveDisplayNamePlaceholders(Player player, Language language, String[] displayNameTAR) {
+        return languageStorage.resolvePlaceholders(player, language.getTemplate(displayNameKeyId), displayNameTAR);
+    }
+
+    String[] resolveDescriptionPlaceholders(Player player, Language language, String[] descriptionTAR) {
+        return languageStorage.resolvePlaceholders(player, language.getTemplate(descriptionKeyId), descriptionTAR);
+    }
+
+    MessageTemplate getDisplayNameTemplate(Language language) {
+        return languageStorage.getTemplate(language, displayNameKeyId);
+    }
+
+    MessageTemplate getDescriptionTemplate(Language language) {
+        return languageStorage.getTemplate(language, descriptionKeyId);
+    }
+
+    Material getMaterial() {
+        return materialSupplier.get();
+    }
+
+    ColorCodeSettings getColorCodeSettings() {
+        return colorCodeSettings;
+    }
+
+    ItemStack createStack(MessageTemplate displayName, MessageTemplate description, Locale locale, Material material,
+                          String[] displayNameTAR, String[] descriptionTAR) {
+        return createStack(material, StringHelper.render(displayName, locale, colorCodeSettings, displayNameTAR),
+                StringHelper.renderLines(description, locale, colorCodeSettings, descriptionTAR));
+    }
+
+    private static ItemStack createStack(Material material, String displayName, List<String> description) {
+        ItemStack stack = new ItemStack(material);
+        ItemMeta meta = stack.getItemMeta();
+
+        meta.setDisplayName(displayName);
 
-        meta.setLore(Arrays.asList(colorCodeSettings.apply(StringHelper.multiReplace(description, descriptionTAR)).split("\\r?\\n", 0)));
+        meta.setLore(description);
 
         stack.setItemMeta(meta);
         return stack;
     }
+
+    private static final class ItemPrototype {
+
+        private final MessageTemplate displayName, description;
+        private final int modifications;
+        private final ItemStack stack;
+
+        private ItemPrototype(MessageTemplate displayName, MessageTemplate description, int modifications, ItemStack stack) {
+            this.displayName = displayName;
+            this.description = description;
+            this.modifications = modifications;
+            this.stack = stack;
+        }
+    }
+
+    private static final class RenderedDescription {
+
+        private final List<MessageTemplate> lines;
+        private final Locale locale;
+        /**
+         * The replacements of the placeholders of every line in the order they appear in the line
+         */
+        private final String[][] replacements;
+        private final String[] texts;
+
+        private RenderedDescription(List<MessageTemplate> lines, Locale locale, String[][] replacements, String[] texts) {
+            this.lines = lines;
+            this.locale = locale;
+            this.replacements = replacements;
+            this.texts = texts;
+        }
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import com.google.common.collect.MapMaker;
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageStorage;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps frequently updated texts of players, like the lines of a scoreboard or the title of a boss bar, up to date without
+ * rendering and sending them again when nothing has changed.
+ * <br><br>
+ * The last output of every line is remembered per player. A line is only rendered again if the language of the player or the
+ * values of its placeholders, passed or provided by the placeholder providers of the language store, have changed since the last
+ * update, and the updater is only called for lines whose text actually differs from the last one pushed.
+ * <br><br>
+ * The output is remembered per player object and only weakly, so players that have left the server are forgotten once their player
+ * object is no longer used, and a player joining again starts with a fresh output. Updates of the same player must not run
+ * concurrently, which is the case if they are all done on the main thread.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class LiveText {
+
+    private static final String[] NO_REPLACEMENTS = new String[0];
+
+    private final LanguageStorage languageStorage;
+    private final Translation[] lines;
+    private final LineUpdater updater;
+    /**
+     * The output of every player, by the player objects compared by their identity
+     */
+    private final Map<Player, PlayerText> players = new MapMaker().weakKeys().makeMap();
+
+    private final LongAdder renderedLines = new LongAdder(), skippedRenders = new LongAdder();
+    private final LongAdder pushedUpdates = new LongAdder(), skippedUpdates = new LongAdder();
+
+    /**
+     * Creates a new live text
+     *
+     * @param languageStorage The language store the translations of the lines use
+     * @param lines           The translations of the lines, in the order of their indices
+     * @param updater         The updater pushing changed lines to the players
+     * @throws NullPointerException     If the language store, the lines, any of the lines or the updater is null
+     * @throws IllegalArgumentException If there are no lines
+     * @since 1.0.0
+     */
+    public LiveText(LanguageStorage languageStorage, List<Translation> lines, LineUpdater updater) {
+        this.languageStorage = checkNotNull(languageStorage, "The language store cannot be null");
+        checkNotNull(lines, "The lines cannot be null");
+        checkArgument(!lines.isEmpty(), "At least one line is required");
+        this.lines = new ArrayList<>(lines).toArray(new Translation[0]);
+        for (Translation line : this.lines)
+            checkNotNull(line, "The lines cannot contain null");
+        this.updater = checkNotNull(updater, "The updater cannot be null");
+    }
+
+    /**
+     * @return The amount of lines
+     * @since 1.0.0
+     */
+    public int getLineCount() {
+        return lines.length;
+    }
+
+    /**
+     * Brings the lines of the player up to date, using the same targets and replacements for every line.
+     * <br><br>
+     * Lines whose language and placeholder values have not changed since the last update are neither rendered nor pushed, and
+     * rendered lines are only pushed if their text has changed.
+     *
+     * @param player                 The player to update the lines of
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in the lines
+     * @return The amount of lines that have been pushed to the player
+     * @throws NullPointerException If the player is null
+     * @since 1.0.0
+     */
+    public int update(Player player, String... targetsAndReplacements) {
+        checkNotNull(player, "The player to update cannot be null");
+        Language language = languageStorage.getLanguage(player);
+
+        PlayerText text = players.get(player);
+        if (text == null) {
+            text = new PlayerText(lines.length);
+            players.put(player, text);
+        }
+
+        int pushed = 0;
+        for (int line = 0; line < lines.length; line++) {
+            String[] resolved = lines[line].resolvePlaceholders(player, language, targetsAndReplacements);
+            if (text.languages[line] == language && Arrays.equals(text.targetsAndReplacements[line], resolved)) {
+                skippedRenders.increment();
+                continue;
+            }
+
+            String rendered = lines[line].render(language, resolved);
+            renderedLines.increment();
+            text.languages[line] = language;
+            // The array is copied, because the caller may reuse it for the next update
+            text.targetsAndReplacements[line] = resolved.length == 0 ? NO_REPLACEMENTS : resolved.clone();
+            if (rendered.equals(text.texts[line])) {
+                skippedUpdates.increment();
+                continue;
+            }
+
+            text.texts[line] = rendered;
+            updater.update(player, line, rendered);
+            pushedUpdates.increment();
+            pushed++;
+        }
+        return pushed;
+    }
+
+    /**
+     * Forgets the last output of the player, so the next update pushes every line again, e.g. after the scoreboard of the player
+     * has been replaced
+     *
+     * @param player The player to forget the output of
+     * @throws NullPointerException If the player is null
+     * @since 1.0.0
+     */
+    public void invalidate(Player player) {
+        players.remove(checkNotNull(player, "The player cannot be null"));
+    }
+
+    /**
+     * Forgets the last output of every player, so the next update of every player pushes every line again
+     *
+     * @since 1.0.0
+     */
+    public void invalidateAll() {
+        players.clear();
+    }
+
+    /**
+     * @return How many times a line has been rendered
+     * @since 1.0.0
+     */
+    public long getRenderedLines() {
+        return renderedLines.sum();
+    }
+
+    /**
+     * @return How many times rendering a line has been skipped, because neither the language nor the placeholder values changed
+     * @since 1.0.0
+     */
+    public long getSkippedRenders() {
+        return skippedRenders.sum();
+    }
+
+    /**
+     * @return How many times a changed line has been pushed to a player
+     * @since 1.0.0
+     */
+    public long getPushedUpdates() {
+        return pushedUpdates.sum();
+    }
+
+    /**
+     * @return How many times a rendered line has not been pushed, because its text did not change
+     * @since 1.0.0
+     */
+    public long getSkippedUpdates() {
+        return skippedUpdates.sum();
+    }
+
+    /**
+     * Pushes a changed line to a player
+     *
+     * @since 1.0.0
+     */
+    @FunctionalInterface
+    public interface LineUpdater {
+
+        /**
+         * Called for every line whose text has changed, e.g. to set the score of a scoreboard entry or the title of a boss bar
+         *
+         * @param player The player to push the line to
+         * @param line   The index of the line
+         * @param text   The new text of the line
+         * @since 1.0.0
+         */
+        void update(Player player, int line, String text);
+    }
+
+    private static final class PlayerText {
+
+        private final Language[] languages;
+        private final String[][] targetsAndReplacements;
+        private final String[] texts;
+
+        private PlayerText(int lines) {
+            this.languages = new Language[lines];
+            this.targetsAndReplacements = new String[lines][];
+            this.texts = new String[lines];
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An executor that runs its tasks on the main thread of the server, to hand the results of asynchronous rendering back to the
+ * server, e.g. <code>future.thenAcceptAsync(player::sendMessage, new MainThreadExecutor(plugin))</code>.
+ * <br><br>
+ * Tasks submitted on the main thread are run right away, all other tasks are scheduled for the next tick.
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class MainThreadExecutor implements Executor {
+
+    private final Plugin plugin;
+
+    /**
+     * Creates a new executor scheduling its tasks for the plugin
+     *
+     * @param plugin The plugin to schedule the tasks for
+     * @throws NullPointerException If the plugin is null
+     * @since 1.0.0
+     */
+    public MainThreadExecutor(Plugin plugin) {
+        this.plugin = checkNotNull(plugin, "The plugin cannot be null");
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        checkNotNull(command, "The task to run cannot be null");
+        if (Bukkit.isPrimaryThread()) {
+            command.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, command);
+        }
+    }
+}
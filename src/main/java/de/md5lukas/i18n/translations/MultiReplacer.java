@@ -0,0 +1,274 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Replaces any number of targets in a single left to right scan using an Aho-Corasick automaton built from the targets.
+ * <br><br>
+ * If multiple targets match at the same position, the longest one wins, and if the same target is given more than once, its first
+ * replacement is used. Replacements are never scanned again, so a replacement containing another target is inserted as it is.
+ * Empty targets are ignored.
+ * <br><br>
+ * The automata are cached by their targets in a small direct-mapped cache, so recurring target sets are only built once and
+ * looking them up does not allocate any memory.
+ */
+final class MultiReplacer {
+
+    private static final int CACHE_SIZE = 256, ASCII = 128;
+    private static final AtomicReferenceArray<MultiReplacer> cache = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private final String[] targets;
+    private final int hash;
+
+    private final int[] asciiIndices;
+    private final char[] otherChars;
+    private final int asciiColumns, alphabetSize;
+    /**
+     * The next state of every state for every character of the alphabet, indexed by <code>state * alphabetSize + index</code>.
+     * Characters that are not part of the alphabet always lead back to the root state.
+     */
+    private final int[] transitions;
+    private final int[] depths;
+    /**
+     * The length of the longest target ending in every state, or zero if no target ends in a state
+     */
+    private final int[] matchLengths;
+    /**
+     * The index of the target and replacement pair of the longest target ending in every state
+     */
+    private final int[] matchPairs;
+
+    /**
+     * Gets the cached automaton for the targets or builds a new one
+     *
+     * @param targetsAndReplacements The targets at the even and the replacements at the odd indices
+     */
+    static MultiReplacer forTargets(String[] targetsAndReplacements) {
+        int hash = hash(targetsAndReplacements);
+        int slot = hash & (CACHE_SIZE - 1);
+        MultiReplacer replacer = cache.get(slot);
+        if (replacer == null || replacer.hash != hash || !replacer.hasTargets(targetsAndReplacements)) {
+            replacer = new MultiReplacer(targetsAndReplacements, hash);
+            // Racing threads build equal automata, so the last write winning is fine
+            cache.set(slot, replacer);
+        }
+        return replacer;
+    }
+
+    private static int hash(String[] targetsAndReplacements) {
+        int hash = 1;
+        for (int index = 0; index < targetsAndReplacements.length; index += 2)
+            hash = 31 * hash + checkNotNull(targetsAndReplacements[index], "The targets cannot be null").hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean hasTargets(String[] targetsAndReplacements) {
+        if (targets.length * 2 != targetsAndReplacements.length)
+            return false;
+        for (int index = 0; index < targets.length; index++) {
+            if (!targets[index].equals(targetsAndReplacements[index * 2]))
+                return false;
+        }
+        return true;
+    }
+
+    private MultiReplacer(String[] targetsAndReplacements, int hash) {
+        this.hash = hash;
+        this.targets = new String[targetsAndReplacements.length / 2];
+        for (int index = 0; index < targets.length; index++)
+            targets[index] = targetsAndReplacements[index * 2];
+
+        // Only the characters used by the targets get their own column in the transition table
+        TreeSet<Character> alphabet = new TreeSet<>();
+        for (String target : targets) {
+            for (int index = 0; index < target.length(); index++)
+                alphabet.add(target.charAt(index));
+        }
+        this.asciiIndices = new int[ASCII];
+        Arrays.fill(asciiIndices, -1);
+        StringBuilder otherChars = new StringBuilder();
+        int alphabetSize = 0;
+        for (char c : alphabet) {
+            if (c < ASCII) {
+                asciiIndices[c] = alphabetSize++;
+            } else {
+                otherChars.append(c);
+            }
+        }
+        this.otherChars = otherChars.toString().toCharArray();
+        this.asciiColumns = alphabetSize;
+        alphabetSize += this.otherChars.length;
+        this.alphabetSize = alphabetSize;
+
+        // Build the trie of the targets
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>(), matchLengths = new ArrayList<>(), matchPairs = new ArrayList<>();
+        children.add(new HashMap<>());
+        depths.add(0);
+        matchLengths.add(0);
+        matchPairs.add(-1);
+        for (int pair = 0; pair < targets.length; pair++) {
+            String target = targets[pair];
+            if (target.isEmpty())
+                continue;
+            int state = 0;
+            for (int index = 0; index < target.length(); index++) {
+                Integer next = children.get(state).get(target.charAt(index));
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(target.charAt(index), next);
+                    children.add(new HashMap<>());
+                    depths.add(index + 1);
+                    matchLengths.add(0);
+                    matchPairs.add(-1);
+                }
+                state = next;
+            }
+            // The first replacement of a duplicated target wins
+            if (matchPairs.get(state) == -1) {
+                matchLengths.set(state, target.length());
+                matchPairs.set(state, pair);
+            }
+        }
+
+        int states = children.size();
+        this.transitions = new int[states * alphabetSize];
+        this.depths = new int[states];
+        this.matchLengths = new int[states];
+        this.matchPairs = new int[states];
+        for (int state = 0; state < states; state++) {
+            this.depths[state] = depths.get(state);
+            this.matchLengths[state] = matchLengths.get(state);
+            this.matchPairs[state] = matchPairs.get(state);
+        }
+
+        // Complete the trie to a deterministic automaton in breadth first order, so the failure state of every state is done first
+        int[] failures = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failure = failures[state];
+            // A target ending in the failure state also ends in this state and is the longest one unless a target ends here
+            if (this.matchLengths[state] == 0 && state != 0) {
+                this.matchLengths[state] = this.matchLengths[failure];
+                this.matchPairs[state] = this.matchPairs[failure];
+            }
+            for (char c : alphabet) {
+                int column = indexOf(c);
+                Integer child = children.get(state).get(c);
+                if (child != null) {
+                    failures[child] = state == 0 ? 0 : transitions[failure * alphabetSize + column];
+                    transitions[state * alphabetSize + column] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * alphabetSize + column] = state == 0 ? 0 : transitions[failure * alphabetSize + column];
+                }
+            }
+        }
+    }
+
+    private int indexOf(char c) {
+        if (c < ASCII)
+            return asciiIndices[c];
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? -1 : asciiColumns + index;
+    }
+
+    /**
+     * Replaces the targets in the string
+     *
+     * @param string                 The string to replace the targets in
+     * @param targetsAndReplacements The same targets this automaton has been built for and their replacements
+     * @return The string with the targets replaced, or the string itself if it does not contain any target
+     */
+    String replace(String string, String[] targetsAndReplacements) {
+        return replace(string, targetsAndReplacements, null);
+    }
+
+    /**
+     * Does the same as {@link #replace(String, String[])}, but maps every part of the string between the replaced targets
+     *
+     * @param literals The function to map the parts of the string that are not replaced with, or <code>null</code> to keep them
+     */
+    String replace(String string, String[] targetsAndReplacements, UnaryOperator<String> literals) {
+        StringBuilder builder = null;
+        // The start of the text that has not been copied to the builder yet
+        int copied = 0;
+        int state = 0;
+        // The leftmost longest match found so far, which is replaced once no longer match starting before it is possible
+        int matchStart = -1, matchLength = 0, matchPair = -1;
+        int length = string.length();
+        for (int index = 0; index <= length; index++) {
+            if (index < length) {
+                int column = indexOf(string.charAt(index));
+                state = column == -1 ? 0 : transitions[state * alphabetSize + column];
+                int found = matchLengths[state];
+                if (found > 0) {
+                    int start = index + 1 - found;
+                    if (matchStart == -1 || start < matchStart || (start == matchStart && found > matchLength)) {
+                        matchStart = start;
+                        matchLength = found;
+                        matchPair = matchPairs[state];
+                    }
+                }
+                if (matchStart == -1 || index + 1 - depths[state] <= matchStart)
+                    continue;
+            } else if (matchStart == -1) {
+                break;
+            }
+
+            if (builder == null)
+                builder = new StringBuilder(length + 16);
+            appendLiteral(builder, string, copied, matchStart, literals);
+            builder.append(checkNotNull(targetsAndReplacements[matchPair * 2 + 1], "The replacements cannot be null"));
+            copied = matchStart + matchLength;
+            // Continue right after the match, text overlapping the match cannot be matched anymore
+            index = copied - 1;
+            state = 0;
+            matchStart = -1;
+        }
+
+        if (builder == null)
+            return literals == null ? string : literals.apply(string);
+        appendLiteral(builder, string, copied, length, literals);
+        return builder.toString();
+    }
+
+    private static void appendLiteral(StringBuilder builder, String string, int start, int end, UnaryOperator<String> literals) {
+        if (literals == null) {
+            builder.append(string, start, end);
+        } else if (start < end) {
+            builder.append(literals.apply(string.substring(start, end)));
+        }
+    }
+}
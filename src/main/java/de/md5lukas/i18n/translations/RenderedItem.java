@@ -0,0 +1,60 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import java.util.List;
+
+/**
+ * The texts of an item rendered by {@link ItemTranslation#render(de.md5lukas.i18n.language.Language, ItemTranslationTAR)}, which
+ * do not depend on the server and can therefore be created on any thread
+ *
+ * @author Lukas Planz
+ * @since 1.0.0
+ */
+public final class RenderedItem {
+
+    private final String displayName;
+    private final List<String> description;
+
+    RenderedItem(String displayName, List<String> description) {
+        this.displayName = displayName;
+        this.description = description;
+    }
+
+    /**
+     * @return The rendered display name
+     * @since 1.0.0
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return A read-only list of the rendered lines of the description
+     * @since 1.0.0
+     */
+    public List<String> getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderedItem{displayName='" + displayName + "', description=" + description + '}';
+    }
+}
@@ -19,19 +19,162 @@
 package de.md5lukas.i18n.translations;
 
 import com.google.common.base.Preconditions;
+import de.md5lukas.i18n.language.MessageTemplate;
+import de.md5lukas.i18n.language.TemplateArguments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 final class StringHelper {
 
-    // TODO use method from commons library and update JavaDoc to explain it better
-    static String multiReplace(String string, String... targetsAndReplacements) {
-        if (targetsAndReplacements.length == 0)
-            return string;
+    /**
+     * Renders the colored template in a single pass if every target is one of its placeholders. Otherwise the placeholders and the
+     * free-form targets are replaced together in one scan over the source, so typed placeholders are formatted either way.
+     */
+    static String render(MessageTemplate template, Locale locale, ColorCodeSettings colorCodeSettings, String... targetsAndReplacements) {
+        if (!hasOnlyPlaceholders(template, targetsAndReplacements))
+            return renderLegacy(template, locale, colorCodeSettings, targetsAndReplacements);
+        return colorCodeSettings.apply(template).render(locale, targetsAndReplacements);
+    }
+
+    /**
+     * Does the same as {@link #render(MessageTemplate, Locale, ColorCodeSettings, String...)}, but appends the result to the builder
+     */
+    static void renderTo(StringBuilder builder, MessageTemplate template, Locale locale, ColorCodeSettings colorCodeSettings,
+                         String... targetsAndReplacements) {
+        if (!hasOnlyPlaceholders(template, targetsAndReplacements)) {
+            builder.append(renderLegacy(template, locale, colorCodeSettings, targetsAndReplacements));
+        } else {
+            colorCodeSettings.apply(template).renderTo(builder, locale, targetsAndReplacements);
+        }
+    }
+
+    /**
+     * Appends the colored template to the builder with the placeholders replaced by the arguments
+     */
+    static void renderTo(StringBuilder builder, MessageTemplate template, Locale locale, ColorCodeSettings colorCodeSettings,
+                         TemplateArguments arguments) {
+        colorCodeSettings.apply(template).renderTo(builder, locale, arguments);
+    }
+
+    /**
+     * Renders the colored template line by line, so lines without placeholders are served from the template as they are.
+     * Line breaks inserted by replacements are honored and trailing empty lines are removed, like {@link String#split(String)} does.
+     */
+    static List<String> renderLines(MessageTemplate template, Locale locale, ColorCodeSettings colorCodeSettings,
+                                    String... targetsAndReplacements) {
+        List<String> lines = new ArrayList<>();
+        if (!hasOnlyPlaceholders(template, targetsAndReplacements)) {
+            splitLines(renderLegacy(template, locale, colorCodeSettings, targetsAndReplacements), lines);
+        } else {
+            for (MessageTemplate line : colorCodeSettings.apply(template).getLines())
+                splitLines(line.render(locale, targetsAndReplacements), lines);
+        }
+
+        removeTrailingEmptyLines(lines);
+        return lines;
+    }
+
+    static void removeTrailingEmptyLines(List<String> lines) {
+        if (lines.size() > 1) {
+            int size = lines.size();
+            while (size > 0 && lines.get(size - 1).isEmpty())
+                size--;
+            lines.subList(size, lines.size()).clear();
+        }
+    }
+
+    /**
+     * Splits the string at <code>\r?\n</code> without compiling a regular expression
+     */
+    static void splitLines(String string, List<String> lines) {
+        int start = 0, index;
+        while ((index = string.indexOf('\n', start)) != -1) {
+            lines.add(string.substring(start, index > start && string.charAt(index - 1) == '\r' ? index - 1 : index));
+            start = index + 1;
+        }
+        lines.add(start == 0 ? string : string.substring(start));
+    }
+
+    static boolean hasOnlyPlaceholders(MessageTemplate template, String[] targetsAndReplacements) {
         Preconditions.checkArgument(targetsAndReplacements.length % 2 == 0, "Every target sequence needs a replacement");
 
         for (int index = 0; index < targetsAndReplacements.length; index += 2) {
-            string = string.replace(targetsAndReplacements[index], targetsAndReplacements[index + 1]);
+            if (!template.hasPlaceholder(targetsAndReplacements[index]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The replacement of every placeholder of the template in the order they appear, or <code>null</code> for
+     * placeholders without a matching target
+     */
+    static String[] lookupReplacements(MessageTemplate template, String[] targetsAndReplacements) {
+        List<String> placeholders = template.getPlaceholders();
+        String[] replacements = new String[placeholders.size()];
+        for (int index = 0; index < replacements.length; index++) {
+            String placeholder = placeholders.get(index);
+            for (int target = 0; target < targetsAndReplacements.length - 1; target += 2) {
+                if (placeholder.equals(targetsAndReplacements[target])) {
+                    replacements[index] = targetsAndReplacements[target + 1];
+                    break;
+                }
+            }
+        }
+        return replacements;
+    }
+
+    /**
+     * Replaces the placeholders and the free-form targets in the source of the template in a single scan, so no replacement is
+     * searched for targets again and free-form targets are matched against the source before its color codes are translated.
+     * Only the parts of the source that are not replaced are colored, replacements are colored like the colored template does.
+     */
+    private static String renderLegacy(MessageTemplate template, Locale locale, ColorCodeSettings colorCodeSettings,
+                                       String[] targetsAndReplacements) {
+        MessageTemplate colored = colorCodeSettings.apply(template);
+        String[] replacements = lookupReplacements(template, targetsAndReplacements);
+        List<String> combinedTAR = new ArrayList<>(replacements.length * 2 + targetsAndReplacements.length);
+        // Placeholders without a replacement are left as they have been written, so they do not need to be targets
+        for (int index = 0; index < replacements.length; index++) {
+            String replacement = replacements[index];
+            String token = template.getToken(index);
+            if (replacement != null && !containsTarget(combinedTAR, token)) {
+                combinedTAR.add(token);
+                combinedTAR.add(colored.renderPlaceholder(index, locale, replacement));
+            }
+        }
+        for (int index = 0; index < targetsAndReplacements.length; index += 2) {
+            String target = targetsAndReplacements[index], replacement = targetsAndReplacements[index + 1];
+            if (!template.hasPlaceholder(target)) {
+                combinedTAR.add(target);
+                combinedTAR.add(colorCodeSettings.isColorReplacements() ? colorCodeSettings.apply(replacement) : replacement);
+            }
         }
 
-        return string;
+        String[] combined = combinedTAR.toArray(new String[0]);
+        if (combined.length == 0)
+            return colorCodeSettings.apply(template.getSource());
+        return MultiReplacer.forTargets(combined).replace(template.getSource(), combined, colorCodeSettings::apply);
+    }
+
+    private static boolean containsTarget(List<String> targetsAndReplacements, String target) {
+        for (int index = 0; index < targetsAndReplacements.size(); index += 2) {
+            if (targetsAndReplacements.get(index).equals(target))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces every target in the string in a single scan, see {@link MultiReplacer} for how overlapping targets are handled
+     */
+    static String multiReplace(String string, String... targetsAndReplacements) {
+        if (targetsAndReplacements.length == 0)
+            return string;
+        Preconditions.checkArgument(targetsAndReplacements.length % 2 == 0, "Every target sequence needs a replacement");
+
+        return MultiReplacer.forTargets(targetsAndReplacements).replace(string, targetsAndReplacements);
     }
 }
@@ -18,8 +18,27 @@
 
 package de.md5lukas.i18n.translations;
 
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageCache;
 import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.language.MessageTemplate;
+import de.md5lukas.i18n.language.TemplateArguments;
+import de.md5lukas.i18n.language.TranslationMetrics;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -33,9 +52,21 @@ public final class Translation {
 
     private final LanguageStorage languageStorage;
     private final String key;
+    private final int keyId;
 
     private final ColorCodeSettings colorCodeSettings;
 
+    /**
+     * The placeholder-free renders of the languages they have been rendered for, which are invalidated when the languages of the
+     * language store are replaced
+     */
+    private final LanguageCache<RenderedTranslation> rendered = new LanguageCache<>();
+    /**
+     * The chat components of the last message with replacements sent as components, by the key of the language it has been
+     * rendered for. Repeating the same message, e.g. a countdown broadcast every second, does not convert it again.
+     */
+    private final Map<String, ConvertedText> converted = new ConcurrentHashMap<>();
+
     /**
      * Creates a new translation helper using the language store, the key in the configuration and color code settings
      *
@@ -47,7 +78,9 @@ public final class Translation {
     public Translation(LanguageStorage languageStorage, String key, ColorCodeSettings colorCodeSettings) {
         this.languageStorage = checkNotNull(languageStorage, "The language store cannot be null");
         this.key = checkNotNull(key, "The translation key cannot be null");
+        this.keyId = languageStorage.getKeyRegistry().register(key);
         this.colorCodeSettings = checkNotNull(colorCodeSettings, "The color code settings cannot be null");
+        languageStorage.declareKey(key);
     }
 
     /**
@@ -64,17 +97,256 @@ public final class Translation {
     }
 
     /**
-     * Gets the string from the current translation in the language of the command sender
+     * Declares the placeholders passed when this translation is rendered, so {@link LanguageStorage#verify(boolean)} can check
+     * them
+     *
+     * @param placeholders The placeholders passed when this translation is rendered, e.g. <code>%name%</code>
+     * @return <code>this</code> for a builder like usage
+     * @throws NullPointerException If any of the placeholders are null
+     * @see LanguageStorage#declarePlaceholders(String, Collection)
+     * @since 1.0.0
+     */
+    public Translation declarePlaceholders(String... placeholders) {
+        languageStorage.declarePlaceholders(key, Arrays.asList(placeholders));
+        return this;
+    }
+
+    /**
+     * Gets the string from the current translation in the language of the command sender.
+     * <br><br>
+     * If no targets and replacements are provided, the result is cached for the language it has been rendered for. The cache is
+     * invalidated automatically when the languages of the language store are replaced.
+     * <br><br>
+     * Placeholders of the translation that have not been passed are filled in by the placeholder providers of the language store.
      *
      * @param commandSender          The command sender of which the language should be used
      * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
      * @return The translated message with substitutions for the targets in place
      * @throws NullPointerException If commandSender is null
+     * @see LanguageStorage#registerPlaceholder(String, java.util.function.Function)
      * @since 1.0.0
      */
     public String getAsString(CommandSender commandSender, String... targetsAndReplacements) {
         checkNotNull(commandSender, "The command sender cannot be null");
-        return colorCodeSettings.apply(StringHelper.multiReplace(languageStorage.getLanguage(commandSender).getTranslation(key)));
+        Language language = languageStorage.getLanguage(commandSender);
+        return render(language, resolvePlaceholders(commandSender, language, targetsAndReplacements));
+    }
+
+    String[] resolvePlaceholders(CommandSender commandSender, Language language, String[] targetsAndReplacements) {
+        // The template is taken from the language directly, so looking it up is not recorded twice by the metrics
+        return languageStorage.resolvePlaceholders(commandSender, language.getTemplate(keyId), targetsAndReplacements);
+    }
+
+    /**
+     * Does the same as {@link #getAsString(CommandSender, String...)}, but appends the message to the provided builder instead of
+     * creating a new string. Reusing the builder avoids allocating a new string for every message.
+     *
+     * @param builder                The builder to append the message to
+     * @param commandSender          The command sender of which the language should be used
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @return The builder
+     * @throws NullPointerException If the builder or commandSender is null
+     * @since 1.0.0
+     */
+    public StringBuilder renderTo(StringBuilder builder, CommandSender commandSender, String... targetsAndReplacements) {
+        checkNotNull(builder, "The builder cannot be null");
+        checkNotNull(commandSender, "The command sender cannot be null");
+        TranslationMetrics metrics = languageStorage.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        Language language = languageStorage.getLanguage(commandSender);
+        MessageTemplate template = languageStorage.getTemplate(language, keyId);
+        targetsAndReplacements = languageStorage.resolvePlaceholders(commandSender, template, targetsAndReplacements);
+        if (targetsAndReplacements.length > 0) {
+            StringHelper.renderTo(builder, template, language.getLocale(), colorCodeSettings, targetsAndReplacements);
+        } else {
+            builder.append(renderCached(language, template).text);
+        }
+        if (metrics != null)
+            metrics.getMessageLatency().record(System.nanoTime() - start);
+        return builder;
+    }
+
+    /**
+     * Does the same as {@link #renderTo(StringBuilder, CommandSender, String...)}, but takes the replacements from the arguments.
+     * Numbers set in the arguments are appended to the builder directly, so with a reused builder and reused arguments rendering
+     * does not allocate any memory.
+     * <br><br>
+     * Unlike the targets of {@link #getAsString(CommandSender, String...)} the arguments only replace whole placeholders like
+     * <code>%name%</code>. Placeholders that have not been set in the arguments are filled in by the placeholder providers of the
+     * language store, without changing the arguments. Only in that case rendering allocates memory for the provided values.
+     *
+     * @param builder       The builder to append the message to
+     * @param commandSender The command sender of which the language should be used
+     * @param arguments     The replacements for the placeholders of this translation
+     * @return The builder
+     * @throws NullPointerException If the builder, commandSender or the arguments are null
+     * @since 1.0.0
+     */
+    public StringBuilder renderTo(StringBuilder builder, CommandSender commandSender, TemplateArguments arguments) {
+        checkNotNull(builder, "The builder cannot be null");
+        checkNotNull(commandSender, "The command sender cannot be null");
+        checkNotNull(arguments, "The arguments cannot be null");
+        TranslationMetrics metrics = languageStorage.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        Language language = languageStorage.getLanguage(commandSender);
+        MessageTemplate template = languageStorage.getTemplate(language, keyId);
+        String[] provided = languageStorage.resolvePlaceholders(commandSender, template, arguments);
+        if (provided.length > 0) {
+            TemplateArguments resolved = new TemplateArguments().setAll(arguments);
+            for (int index = 0; index < provided.length; index += 2)
+                resolved.set(provided[index], provided[index + 1]);
+            StringHelper.renderTo(builder, template, language.getLocale(), colorCodeSettings, resolved);
+        } else if (arguments.isEmpty()) {
+            builder.append(renderCached(language, template).text);
+        } else {
+            StringHelper.renderTo(builder, template, language.getLocale(), colorCodeSettings, arguments);
+        }
+        if (metrics != null)
+            metrics.getMessageLatency().record(System.nanoTime() - start);
+        return builder;
+    }
+
+    /**
+     * Renders the message in the language, like {@link #getAsString(CommandSender, String...)} does for the language of a command
+     * sender.
+     * <br><br>
+     * Rendering does not use the server in any way and is thread-safe, so it can be done on any thread while the message is sent
+     * on the main thread afterwards.
+     *
+     * @param language               The language to render the message in
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @return The translated message with substitutions for the targets in place
+     * @throws NullPointerException If the language is null
+     * @since 1.0.0
+     */
+    public String render(Language language, String... targetsAndReplacements) {
+        checkNotNull(language, "The language to render the message in cannot be null");
+        if (targetsAndReplacements.length > 0) {
+            TranslationMetrics metrics = languageStorage.getMetrics();
+            long start = metrics == null ? 0 : System.nanoTime();
+            String text = StringHelper.render(languageStorage.getTemplate(language, keyId), language.getLocale(), colorCodeSettings,
+                    targetsAndReplacements);
+            if (metrics != null)
+                metrics.getMessageLatency().record(System.nanoTime() - start);
+            return text;
+        }
+        return renderCached(language).text;
+    }
+
+    private RenderedTranslation renderCached(Language language) {
+        TranslationMetrics metrics = languageStorage.getMetrics();
+        if (metrics == null) {
+            RenderedTranslation cached = getCached(language);
+            return cached != null ? cached : renderCached(language, languageStorage.getTemplate(language, keyId));
+        }
+
+        // The template is looked up for cached renders as well, so the metrics count every lookup
+        long start = System.nanoTime();
+        RenderedTranslation rendered = renderCached(language, languageStorage.getTemplate(language, keyId));
+        metrics.getMessageLatency().record(System.nanoTime() - start);
+        return rendered;
+    }
+
+    private RenderedTranslation getCached(Language language) {
+        RenderedTranslation cached = rendered.get(language);
+        return cached != null && cached.modifications == colorCodeSettings.getModifications() ? cached : null;
+    }
+
+    private RenderedTranslation renderCached(Language language, MessageTemplate template) {
+        RenderedTranslation cached = getCached(language);
+        if (cached != null)
+            return cached;
+
+        // Without replacements typed placeholders are left as they are, so the text does not depend on the locale
+        int modifications = colorCodeSettings.getModifications();
+        cached = new RenderedTranslation(modifications, StringHelper.render(template, Locale.ROOT, colorCodeSettings));
+        rendered.put(language, cached);
+        return cached;
+    }
+
+    /**
+     * Does the same as {@link #render(Language, String...)}, but renders the message on the executor
+     *
+     * @param language               The language to render the message in
+     * @param executor               The executor to render the message on
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @return A future that completes on the executor with the translated message
+     * @throws NullPointerException If the language or the executor is null
+     * @see MainThreadExecutor
+     * @since 1.0.0
+     */
+    public CompletableFuture<String> renderAsync(Language language, Executor executor, String... targetsAndReplacements) {
+        checkNotNull(language, "The language to render the message in cannot be null");
+        checkNotNull(executor, "The executor cannot be null");
+        // The caller may reuse the array once this method has returned
+        String[] replacements = targetsAndReplacements.clone();
+        return CompletableFuture.supplyAsync(() -> render(language, replacements), executor);
+    }
+
+    /**
+     * Does the same as {@link #send(CommandSender, String...)}, but renders the message on the executor and sends it on the main
+     * thread afterwards.
+     * <br><br>
+     * The language of the command sender and the values of the placeholder providers are resolved right away, so this method
+     * should be called on the main thread.
+     *
+     * @param commandSender          The command sender of which the language should be used and the message should be sent to
+     * @param executor               The executor to render the message on
+     * @param plugin                 The plugin to schedule sending the message for
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @return A future that completes on the main thread after the message has been sent
+     * @throws NullPointerException If the command sender, the executor or the plugin is null
+     * @since 1.0.0
+     */
+    public CompletableFuture<Void> sendAsync(CommandSender commandSender, Executor executor, Plugin plugin,
+                                             String... targetsAndReplacements) {
+        checkNotNull(commandSender, "The command sender cannot be null");
+        MainThreadExecutor mainThread = new MainThreadExecutor(plugin);
+        Language language = languageStorage.getLanguage(commandSender);
+        return renderAsync(language, executor, resolvePlaceholders(commandSender, language, targetsAndReplacements))
+                .thenAcceptAsync(commandSender::sendMessage, mainThread);
+    }
+
+    /**
+     * Gets the message using {@link #getAsString(CommandSender, String...)} and converts it into chat components.
+     * <br><br>
+     * If no targets and replacements are provided, the components are cached per language just like the string is. Because chat
+     * components are mutable, a copy of the cached components is returned, so the caller may modify them freely.
+     *
+     * @param commandSender          The command sender of which the language should be used
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @return The translated message as chat components
+     * @throws NullPointerException If commandSender is null
+     * @since 1.0.0
+     */
+    public BaseComponent[] getAsComponents(CommandSender commandSender, String... targetsAndReplacements) {
+        checkNotNull(commandSender, "The command sender cannot be null");
+        Language language = languageStorage.getLanguage(commandSender);
+        targetsAndReplacements = resolvePlaceholders(commandSender, language, targetsAndReplacements);
+        if (targetsAndReplacements.length > 0)
+            return TextComponent.fromLegacyText(render(language, targetsAndReplacements));
+        return duplicate(renderCached(language).getComponents());
+    }
+
+    /**
+     * Gets the message using {@link #getAsComponents(CommandSender, String...)} and serializes the components to JSON, e.g. for
+     * sending them on the packet level.
+     * <br><br>
+     * If no targets and replacements are provided, the JSON is cached per language just like the string is.
+     *
+     * @param commandSender          The command sender of which the language should be used
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @return The translated message as chat components serialized to JSON
+     * @throws NullPointerException If commandSender is null
+     * @since 1.0.0
+     */
+    public String getAsJson(CommandSender commandSender, String... targetsAndReplacements) {
+        checkNotNull(commandSender, "The command sender cannot be null");
+        Language language = languageStorage.getLanguage(commandSender);
+        targetsAndReplacements = resolvePlaceholders(commandSender, language, targetsAndReplacements);
+        if (targetsAndReplacements.length > 0)
+            return ComponentSerializer.toString(TextComponent.fromLegacyText(render(language, targetsAndReplacements)));
+        return renderCached(language).getJson();
     }
 
     /**
@@ -87,6 +359,158 @@ public final class Translation {
      */
     public void send(CommandSender commandSender, String... targetsAndReplacements) {
         checkNotNull(commandSender, "The command sender cannot be null")
-                .sendMessage(colorCodeSettings.apply(getAsString(commandSender, targetsAndReplacements)));
+                .sendMessage(getAsString(commandSender, targetsAndReplacements));
+    }
+
+    /**
+     * Sends the message to all command senders, but renders it only once for every distinct language among them. Command senders
+     * that get values from the placeholder providers get their own rendering.
+     *
+     * @param commandSenders         The command senders of which the language should be used and the message should be sent to
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @throws NullPointerException If commandSenders or any of the command senders are null
+     * @since 1.0.0
+     */
+    public void broadcast(Collection<? extends CommandSender> commandSenders, String... targetsAndReplacements) {
+        checkNotNull(commandSenders, "The command senders cannot be null");
+
+        Map<Language, String> messages = new IdentityHashMap<>();
+        for (CommandSender commandSender : commandSenders) {
+            Language language = languageStorage.getLanguage(checkNotNull(commandSender, "The command sender cannot be null"));
+            String[] resolved = resolvePlaceholders(commandSender, language, targetsAndReplacements);
+            if (resolved != targetsAndReplacements) {
+                commandSender.sendMessage(render(language, resolved));
+                continue;
+            }
+
+            String message = messages.get(language);
+            if (message == null) {
+                message = render(language, targetsAndReplacements);
+                messages.put(language, message);
+            }
+            commandSender.sendMessage(message);
+        }
+    }
+
+    /**
+     * Gets the message using {@link #getAsComponents(CommandSender, String...)} and sends it as chat components to the command
+     * sender, so the server does not have to parse the legacy color codes again. Command senders that are not players get the
+     * message as a string.
+     *
+     * @param commandSender          The command sender of which the language should be used and the message should be sent to
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @throws NullPointerException If commandSender is null
+     * @since 1.0.0
+     */
+    public void sendComponents(CommandSender commandSender, String... targetsAndReplacements) {
+        checkNotNull(commandSender, "The command sender cannot be null");
+        Language language = languageStorage.getLanguage(commandSender);
+        String[] resolved = resolvePlaceholders(commandSender, language, targetsAndReplacements);
+        if (!(commandSender instanceof Player)) {
+            commandSender.sendMessage(render(language, resolved));
+        } else if (resolved.length > 0) {
+            ((Player) commandSender).spigot().sendMessage(toComponents(language, render(language, resolved)));
+        } else {
+            ((Player) commandSender).spigot().sendMessage(renderCached(language).getComponents());
+        }
+    }
+
+    /**
+     * Does the same as {@link #broadcast(Collection, String...)}, but sends the message as chat components like
+     * {@link #sendComponents(CommandSender, String...)} does
+     *
+     * @param commandSenders         The command senders of which the language should be used and the message should be sent to
+     * @param targetsAndReplacements The targets and replacements to use to substitute strings in this translation
+     * @throws NullPointerException If commandSenders or any of the command senders are null
+     * @since 1.0.0
+     */
+    public void broadcastComponents(Collection<? extends CommandSender> commandSenders, String... targetsAndReplacements) {
+        checkNotNull(commandSenders, "The command senders cannot be null");
+
+        Map<Language, BaseComponent[]> messages = new IdentityHashMap<>();
+        for (CommandSender commandSender : commandSenders) {
+            Language language = languageStorage.getLanguage(checkNotNull(commandSender, "The command sender cannot be null"));
+            String[] resolved = resolvePlaceholders(commandSender, language, targetsAndReplacements);
+            if (!(commandSender instanceof Player)) {
+                commandSender.sendMessage(render(language, resolved));
+                continue;
+            }
+            if (resolved != targetsAndReplacements) {
+                ((Player) commandSender).spigot().sendMessage(TextComponent.fromLegacyText(render(language, resolved)));
+                continue;
+            }
+
+            BaseComponent[] message = messages.get(language);
+            if (message == null) {
+                message = targetsAndReplacements.length > 0 ? toComponents(language, render(language, targetsAndReplacements))
+                        : renderCached(language).getComponents();
+                messages.put(language, message);
+            }
+            ((Player) commandSender).spigot().sendMessage(message);
+        }
+    }
+
+    /**
+     * Converts the text rendered for the language into chat components, reusing the components of the last text converted for
+     * the language if it is the same. The components are shared, so they must only be sent and never be handed out.
+     */
+    private BaseComponent[] toComponents(Language language, String text) {
+        ConvertedText last = converted.get(language.getLanguageKey());
+        if (last != null && last.text.equals(text))
+            return last.components;
+
+        BaseComponent[] components = TextComponent.fromLegacyText(text);
+        converted.put(language.getLanguageKey(), new ConvertedText(text, components));
+        return components;
+    }
+
+    private static BaseComponent[] duplicate(BaseComponent[] components) {
+        BaseComponent[] copy = new BaseComponent[components.length];
+        for (int index = 0; index < components.length; index++)
+            copy[index] = components[index].duplicate();
+        return copy;
+    }
+
+    private static final class ConvertedText {
+
+        private final String text;
+        private final BaseComponent[] components;
+
+        private ConvertedText(String text, BaseComponent[] components) {
+            this.text = text;
+            this.components = components;
+        }
+    }
+
+    private static final class RenderedTranslation {
+
+        private final int modifications;
+        private final String text;
+
+        private volatile BaseComponent[] components;
+        private volatile String json;
+
+        private RenderedTranslation(int modifications, String text) {
+            this.modifications = modifications;
+            this.text = text;
+        }
+
+        private BaseComponent[] getComponents() {
+            BaseComponent[] components = this.components;
+            if (components == null) {
+                components = TextComponent.fromLegacyText(text);
+                this.components = components;
+            }
+            return components;
+        }
+
+        private String getJson() {
+            String json = this.json;
+            if (json == null) {
+                json = ComponentSerializer.toString(getComponents());
+                this.json = json;
+            }
+            return json;
+        }
     }
 }
@@ -0,0 +1,133 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LanguageBundleTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory, bundleFile;
+    private LanguageLoader languageLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("languages").toPath();
+        bundleFile = folder.getRoot().toPath().resolve("languages.bundle");
+        write("en.properties", "greeting=Hello\nfarewell=Goodbye");
+        write("de.properties", "greeting=Hallo\numlaut=Gr\u00fc\u00dfe");
+        languageLoader = new LanguageLoader(directory).setThreads(1);
+    }
+
+    @Test
+    public void languagesSurviveARoundTrip() throws Exception {
+        List<Language> languages = languageLoader.load().get(10, TimeUnit.SECONDS);
+        LanguageBundle.write(bundleFile, 42, languages);
+
+        assertTrue(LanguageBundle.isUpToDate(bundleFile, 42));
+        assertFalse(LanguageBundle.isUpToDate(bundleFile, 43));
+        assertTranslations(LanguageBundle.read(bundleFile));
+    }
+
+    @Test
+    public void outdatedBundleIsCompiledAgain() throws Exception {
+        assertTranslations(languageLoader.loadOrCompile(bundleFile).get(10, TimeUnit.SECONDS));
+
+        write("en.properties", "greeting=Hi\nfarewell=Goodbye");
+
+        Map<String, Language> languages = byKey(languageLoader.loadOrCompile(bundleFile).get(10, TimeUnit.SECONDS));
+        assertEquals("Hi", languages.get("en").getTranslation("greeting"));
+        assertEquals("Hi", byKey(LanguageBundle.read(bundleFile)).get("en").getTranslation("greeting"));
+    }
+
+    @Test
+    public void damagedValueIsRejectedAndCompiledAgain() throws Exception {
+        languageLoader.loadOrCompile(bundleFile).get(10, TimeUnit.SECONDS);
+
+        // The values are stored at the end of the bundle, so this damages a value but neither the header nor the tables
+        byte[] bytes = Files.readAllBytes(bundleFile);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(bundleFile, bytes);
+        assertUnreadable();
+
+        assertTranslations(languageLoader.loadOrCompile(bundleFile).get(10, TimeUnit.SECONDS));
+        assertTranslations(LanguageBundle.read(bundleFile));
+    }
+
+    @Test
+    public void truncatedBundleIsRejectedAndCompiledAgain() throws Exception {
+        languageLoader.loadOrCompile(bundleFile).get(10, TimeUnit.SECONDS);
+
+        byte[] bytes = Files.readAllBytes(bundleFile);
+        Files.write(bundleFile, Arrays.copyOf(bytes, bytes.length / 2));
+        assertUnreadable();
+
+        assertTranslations(languageLoader.loadOrCompile(bundleFile).get(10, TimeUnit.SECONDS));
+        assertTranslations(LanguageBundle.read(bundleFile));
+    }
+
+    private void assertUnreadable() {
+        try {
+            LanguageBundle.read(bundleFile);
+            fail("The damaged bundle has been read");
+        } catch (UncheckedIOException expected) {
+        }
+    }
+
+    private void assertTranslations(List<Language> languages) {
+        Map<String, Language> byKey = byKey(languages);
+        assertEquals(2, byKey.size());
+        assertEquals("Hello", byKey.get("en").getTranslation("greeting"));
+        assertEquals("Goodbye", byKey.get("en").getTranslation("farewell"));
+        assertEquals("Hallo", byKey.get("de").getTranslation("greeting"));
+        assertEquals("Gr\u00fc\u00dfe", byKey.get("de").getTranslation("umlaut"));
+    }
+
+    private static Map<String, Language> byKey(List<Language> languages) {
+        Map<String, Language> byKey = new HashMap<>();
+        for (Language language : languages)
+            byKey.put(language.getLanguageKey(), language);
+        return byKey;
+    }
+
+    private void write(String fileName, String contents) throws IOException {
+        Files.write(directory.resolve(fileName), contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.bukkit.entity.Player;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LanguageStorageTest {
+
+    @Test
+    public void lazyDefaultLanguageIsLoadedBeforeItIsPublished() {
+        LanguageStorage languageStorage = new LanguageStorage("en");
+        KeyRegistry keyRegistry = languageStorage.getKeyRegistry();
+        Language english = new Language("en", Collections.singletonMap("greeting", "Hello"), false, keyRegistry);
+        Language german = new Language("de", Collections.singletonMap("greeting", "Hallo"), false, keyRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<Language> defaultWhileLoading = new AtomicReference<>();
+        Supplier<Language> lazyGerman = () -> {
+            loads.incrementAndGet();
+            defaultWhileLoading.set(languageStorage.getDefaultLanguage());
+            return german;
+        };
+        languageStorage.setLanguages(Collections.singletonList(english), Collections.singletonMap("de", lazyGerman));
+
+        languageStorage.setDefaultLanguage("de");
+
+        assertSame(english, defaultWhileLoading.get());
+        assertSame(german, languageStorage.getDefaultLanguage());
+        assertSame(german, languageStorage.getLanguageExact("de"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void evictedFallbackLanguagesAreNotKeptByDerivedLanguages() throws InterruptedException {
+        LanguageStorage languageStorage = new LanguageStorage("en");
+        AtomicInteger germanLoads = new AtomicInteger();
+        Map<String, Supplier<Language>> lazyLanguages = new HashMap<>();
+        lazyLanguages.put("de", () -> {
+            germanLoads.incrementAndGet();
+            return new Language("de", Collections.singletonMap("farewell", "Tsch\u00fcss"));
+        });
+        lazyLanguages.put("lb", () -> new Language("lb", Collections.singletonMap("greeting", "Moien")));
+        languageStorage.setLanguages(Collections.singletonList(new Language("en", Collections.singletonMap("farewell", "Bye"))),
+                lazyLanguages);
+        languageStorage.setFallbackChains(Collections.singletonMap("lb", Collections.singletonList("de")));
+
+        assertEquals("Tsch\u00fcss", languageStorage.getLanguage("lb").getTranslation("farewell"));
+        assertEquals(1, germanLoads.get());
+
+        Thread.sleep(50);
+        languageStorage.setLazyEviction(25, Long.MAX_VALUE);
+        // Only the luxembourgish language is in use, so only the german one is evicted
+        assertEquals(1, languageStorage.evictLazyLanguages(Collections.singletonList(player("lb"))));
+
+        assertEquals("Tsch\u00fcss", languageStorage.getLanguage("lb").getTranslation("farewell"));
+        assertEquals(2, germanLoads.get());
+    }
+
+    @Test
+    public void keysAreOnlyRegisteredInTheirStorage() {
+        LanguageStorage greetings = new LanguageStorage("en");
+        LanguageStorage farewells = new LanguageStorage("en");
+        Language english = new Language("en", Collections.singletonMap("greeting", "Hello"));
+        // As if a translation had been created first, so the ids of the storage differ from the ones of the language
+        greetings.getKeyRegistry().register("title");
+        greetings.setLanguages(Collections.singletonList(english));
+        farewells.setLanguages(Collections.singletonList(new Language("en", Collections.singletonMap("farewell", "Bye"))));
+
+        assertEquals(-1, greetings.getKeyRegistry().getId("farewell"));
+        assertEquals(-1, farewells.getKeyRegistry().getId("greeting"));
+        assertSame(greetings.getKeyRegistry(), greetings.getLanguage("en").getKeyRegistry());
+        assertEquals("Hello", greetings.getLanguage("en").getTranslation("greeting"));
+        // Languages that have not been set in the storage are indexed by their own key registry
+        assertEquals("Hello", greetings.getTemplate(english, greetings.getKeyRegistry().getId("greeting")).getSource());
+    }
+
+    private static Player player(String locale) {
+        return (Player) Proxy.newProxyInstance(LanguageStorageTest.class.getClassLoader(), new Class<?>[]{Player.class},
+                (proxy, method, args) -> method.getName().equals("getLocale") ? locale : null);
+    }
+}
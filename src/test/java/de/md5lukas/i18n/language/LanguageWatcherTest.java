@@ -0,0 +1,101 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LanguageWatcherTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private LanguageStorage languageStorage;
+    private LanguageWatcher watcher;
+    private final BlockingQueue<Set<String>> changes = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        write("en.properties", "greeting=Hello");
+        write("de.properties", "greeting=Hallo");
+        LanguageLoader languageLoader = new LanguageLoader(folder.getRoot().toPath()).setThreads(1);
+        languageStorage = new LanguageStorage("en");
+        languageLoader.loadLazilyInto(languageStorage).get(10, TimeUnit.SECONDS);
+
+        watcher = new LanguageWatcher(languageStorage, languageLoader).setSettleMillis(50)
+                .addListener((language, changedKeys) -> changes.add(changedKeys));
+        watcher.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        watcher.close();
+    }
+
+    @Test
+    public void unloadedLazyLanguagesStayUnloaded() throws Exception {
+        assertNull(languageStorage.getLazyLanguage("de").getIfLoaded());
+
+        write("de.properties", "greeting=Guten Tag");
+        assertNotNull(changes.poll(10, TimeUnit.SECONDS));
+
+        LazyLanguage lazy = languageStorage.getLazyLanguage("de");
+        assertNotNull(lazy);
+        assertNull(lazy.getIfLoaded());
+        assertEquals("Guten Tag", languageStorage.getLanguageExact("de").getTranslation("greeting"));
+    }
+
+    @Test
+    public void loadedLazyLanguagesAreDiffed() throws Exception {
+        assertEquals("Hallo", languageStorage.getLanguageExact("de").getTranslation("greeting"));
+
+        write("de.properties", "greeting=Guten Tag\nfarewell=Tschuess");
+        Set<String> changedKeys = changes.poll(10, TimeUnit.SECONDS);
+
+        assertNotNull(changedKeys);
+        assertEquals(2, changedKeys.size());
+        assertTrue(changedKeys.contains("greeting"));
+        assertTrue(changedKeys.contains("farewell"));
+        LazyLanguage lazy = languageStorage.getLazyLanguage("de");
+        assertNotNull(lazy);
+        assertEquals("Guten Tag", lazy.getIfLoaded().getTranslation("greeting"));
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LazyLanguageTest {
+
+    private final Language german = new Language("de", Collections.singletonMap("greeting", "Hallo"));
+    private final AtomicInteger loads = new AtomicInteger();
+    /**
+     * Fails the first time, like a source hitting a transient I/O error
+     */
+    private final Supplier<Language> source = () -> {
+        if (loads.incrementAndGet() == 1)
+            throw new IllegalStateException("The file is not readable right now");
+        return german;
+    };
+
+    @Test
+    public void failedSourceIsNotTriedAgainRightAway() {
+        LazyLanguage lazy = new LazyLanguage("de", source, TimeUnit.HOURS.toMillis(1));
+
+        assertNull(lazy.get());
+        assertNull(lazy.get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void failedSourceIsTriedAgainAfterTheDelay() {
+        LazyLanguage lazy = new LazyLanguage("de", source, 0);
+
+        assertNull(lazy.get());
+        assertSame(german, lazy.get());
+        assertSame(german, lazy.get());
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MessageTemplateTest {
+
+    @Test
+    public void plainPlaceholdersAreSubstituted() {
+        MessageTemplate template = MessageTemplate.compile("Hello %name%, you have %count% coins");
+
+        assertEquals(Arrays.asList("%name%", "%count%"), template.getPlaceholders());
+        assertEquals("Hello Steve, you have 3 coins", template.render("%name%", "Steve", "%count%", "3"));
+    }
+
+    @Test
+    public void doubleDelimiterIsLiteral() {
+        MessageTemplate template = MessageTemplate.compile("100%% sure, %name%");
+
+        assertEquals(Collections.singletonList("%name%"), template.getPlaceholders());
+        assertEquals("100%% sure, Alex", template.render("%name%", "Alex"));
+    }
+
+    @Test
+    public void trailingDelimiterIsLiteral() {
+        MessageTemplate template = MessageTemplate.compile("Progress: 50%");
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals("Progress: 50%", template.render("%50%", "ignored"));
+    }
+
+    @Test
+    public void unterminatedPlaceholderIsLiteral() {
+        MessageTemplate template = MessageTemplate.compile("Hello %name");
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals("Hello %name", template.render("%name%", "Steve"));
+    }
+
+    @Test
+    public void unterminatedTypedPlaceholderIsLiteral() {
+        MessageTemplate template = MessageTemplate.compile("You have %count,number coins %name%");
+
+        assertEquals(Collections.singletonList("%name%"), template.getPlaceholders());
+        assertEquals("You have %count,number coins Steve", template.render("%count%", "3", "%name%", "Steve"));
+    }
+
+    @Test
+    public void unterminatedPluralBranchIsLiteral() {
+        MessageTemplate template = MessageTemplate.compile("%count,plural,one{# coin} other{# coins%");
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals("%count,plural,one{# coin} other{# coins%", template.render("%count%", "1"));
+    }
+
+    @Test
+    public void typedPlaceholderAcrossLineBreakIsLiteral() {
+        MessageTemplate template = MessageTemplate.compile("%count,plural,one{# coin}\nother{# coins}%");
+
+        assertFalse(template.hasPlaceholders());
+    }
+
+    @Test
+    public void unknownTypeIsLiteral() {
+        MessageTemplate template = MessageTemplate.compile("%count,colour%");
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals("%count,colour%", template.render("%count%", "3"));
+    }
+
+    @Test
+    public void adjacentPlaceholdersAreSeparated() {
+        MessageTemplate template = MessageTemplate.compile("%a%%b%");
+
+        assertEquals(Arrays.asList("%a%", "%b%"), template.getPlaceholders());
+        assertEquals("12", template.render("%a%", "1", "%b%", "2"));
+    }
+
+    @Test
+    public void replacementsAreNotSearchedForPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile("%a% %b%");
+
+        assertEquals("%b% 2", template.render("%a%", "%b%", "%b%", "2"));
+    }
+
+    @Test
+    public void typedPlaceholdersUseTheirName() {
+        MessageTemplate template = MessageTemplate.compile("%count,plural,one{# coin} other{# coins}%");
+
+        assertTrue(template.hasPlaceholder("%count%"));
+        assertEquals("1 coin", template.render("%count%", "1"));
+        assertEquals("2 coins", template.render("%count%", "2"));
+    }
+
+    @Test
+    public void linesKeepTheirPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile("first %a%\r\nsecond %b%");
+
+        assertEquals(2, template.getLines().size());
+        assertEquals("first 1", template.getLines().get(0).render("%a%", "1", "%b%", "2"));
+        assertEquals("second 2", template.getLines().get(1).render("%a%", "1", "%b%", "2"));
+    }
+
+    @Test
+    public void coloredCopiesAreCachedPerSettings() {
+        MessageTemplate template = MessageTemplate.compile("&aHello %name%");
+        MessageTemplate ampersand = template.colored('&', false), coloredReplacements = template.colored('&', true),
+                dollar = template.colored('$', false);
+
+        assertSame(ampersand, template.colored('&', false));
+        assertSame(coloredReplacements, template.colored('&', true));
+        assertSame(dollar, template.colored('$', false));
+        assertEquals("\u00a7aHello &cSteve", ampersand.render("%name%", "&cSteve"));
+        assertEquals("\u00a7aHello \u00a7cSteve", coloredReplacements.render("%name%", "&cSteve"));
+        assertEquals("&aHello Steve", dollar.render("%name%", "Steve"));
+    }
+}
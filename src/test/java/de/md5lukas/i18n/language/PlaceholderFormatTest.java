@@ -0,0 +1,89 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.language;
+
+import org.junit.Test;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+public class PlaceholderFormatTest {
+
+    @Test
+    public void missingReplacementsKeepTheTypedPlaceholder() {
+        MessageTemplate template = MessageTemplate.compile("%count,number% %time,duration,ticks% %count,plural,one{# coin} other{# coins}%");
+
+        assertEquals("%count,number% %time,duration,ticks% %count,plural,one{# coin} other{# coins}%", template.render());
+        StringBuilder builder = new StringBuilder();
+        template.renderTo(builder, Locale.ENGLISH, new TemplateArguments().set("%time%", 2400));
+        assertEquals("%count,number% 2:00 %count,plural,one{# coin} other{# coins}%", builder.toString());
+    }
+
+    @Test
+    public void coloredTypedPlaceholdersKeepTheirColoredSpan() {
+        MessageTemplate template = MessageTemplate.compile("%count,plural,one{&a# coin} other{&c# coins}%").colored('&', false);
+
+        assertEquals("%count,plural,one{\u00a7a# coin} other{\u00a7c# coins}%", template.render());
+        assertEquals("\u00a7a1 coin", template.render("%count%", "1"));
+    }
+
+    @Test
+    public void integersAreGroupedLikeTheLocale() {
+        MessageTemplate template = MessageTemplate.compile("%count,number%");
+        Locale[] locales = {Locale.ROOT, Locale.US, Locale.GERMANY, Locale.FRANCE, new Locale("hi", "IN"), new Locale("de", "CH"),
+                new Locale("en", "US", "POSIX")};
+        for (Locale locale : locales) {
+            for (long value : new long[]{0, 999, 1000, 1234567, 1234567890123L, Long.MAX_VALUE}) {
+                assertEquals(locale + " " + value, NumberFormat.getNumberInstance(locale).format(value),
+                        template.render(locale, "%count%", Long.toString(value)));
+            }
+        }
+    }
+
+    @Test
+    public void negativeIntegersUseTheMinusSign() {
+        MessageTemplate template = MessageTemplate.compile("%count,number%");
+
+        assertEquals("-1,234", template.render(Locale.US, "%count%", "-1234"));
+        assertEquals("-9,223,372,036,854,775,808", template.render(Locale.US, "%count%", Long.toString(Long.MIN_VALUE)));
+    }
+
+    @Test
+    public void onlyPlainDecimalsAreNumbers() {
+        MessageTemplate template = MessageTemplate.compile("%value,number%");
+
+        for (String text : new String[]{"3d", "2f", "NaN", "Infinity", "-Infinity", "0x1p3", "1e3", "1.", ".5", "-", "+", ""})
+            assertEquals(text, text, template.render(Locale.US, "%value%", text));
+        assertEquals("3.5", template.render(Locale.US, "%value%", "3.5"));
+        assertEquals("-1,234.5", template.render(Locale.US, "%value%", "-1234.5"));
+        assertEquals("12", template.render(Locale.US, "%value%", "+12"));
+    }
+
+    @Test
+    public void largeDurationsDoNotOverflow() {
+        MessageTemplate template = MessageTemplate.compile("%time,duration%");
+
+        assertEquals("2562047788015215:30:07", template.render("%time%", Long.toString(Long.MAX_VALUE)));
+        assertEquals("-2562047788015215:30:08", template.render("%time%", Long.toString(Long.MIN_VALUE)));
+        assertEquals("2562047788015:12:55", MessageTemplate.compile("%time,duration,millis%").render("%time%", Long.toString(Long.MAX_VALUE)));
+        assertEquals("1:00", MessageTemplate.compile("%time,duration,ticks%").render("%time%", "1200"));
+    }
+}
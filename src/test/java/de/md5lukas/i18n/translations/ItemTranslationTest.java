@@ -0,0 +1,84 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageStorage;
+import org.bukkit.Material;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ItemTranslationTest {
+
+    private LanguageStorage languageStorage;
+    private Language english;
+    private ItemTranslation translation;
+
+    @Before
+    public void setUp() {
+        Map<String, String> translations = new HashMap<>();
+        translations.put("shop.displayName", "&6Shop");
+        translations.put("shop.description", "&7Balance: %balance%\n&7Rank: %rank%\n&8Click to open");
+        english = new Language("en", translations);
+        languageStorage = new LanguageStorage("en");
+        languageStorage.setLanguages(Collections.singletonList(english));
+        translation = new ItemTranslation(languageStorage, () -> Material.CHEST, "shop");
+    }
+
+    @Test
+    public void onlyLinesWithChangedReplacementsAreRenderedAgain() {
+        RenderedItem first = translation.render(english, new ItemTranslationTAR().setDescription("%balance%", "10", "%rank%", "Gold"));
+        RenderedItem second = translation.render(english, new ItemTranslationTAR().setDescription("%balance%", "20", "%rank%", "Gold"));
+
+        assertEquals(Arrays.asList("\u00a77Balance: 10", "\u00a77Rank: Gold", "\u00a78Click to open"), first.getDescription());
+        assertEquals(Arrays.asList("\u00a77Balance: 20", "\u00a77Rank: Gold", "\u00a78Click to open"), second.getDescription());
+        assertSame(first.getDescription().get(1), second.getDescription().get(1));
+        assertSame(first.getDescription().get(2), second.getDescription().get(2));
+    }
+
+    @Test
+    public void replacementsWithLineBreaksAreSplit() {
+        RenderedItem item = translation.render(english, new ItemTranslationTAR().setDescription("%balance%", "10\n20", "%rank%", ""));
+
+        assertEquals(Arrays.asList("\u00a77Balance: 10", "20", "\u00a77Rank: ", "\u00a78Click to open"), item.getDescription());
+    }
+
+    @Test
+    public void reloadedTranslationsAreRenderedAgain() {
+        translation.render(english, new ItemTranslationTAR().setDescription("%balance%", "10", "%rank%", "Gold"));
+
+        Map<String, String> translations = new HashMap<>();
+        translations.put("shop.displayName", "&6Shop");
+        translations.put("shop.description", "&7Rank: %rank%");
+        Language reloaded = new Language("en", translations);
+        languageStorage.setLanguages(Collections.singletonList(reloaded));
+        RenderedItem item = translation.render(reloaded, new ItemTranslationTAR().setDescription("%balance%", "10", "%rank%", "Gold"));
+
+        assertEquals("\u00a76Shop", item.getDisplayName());
+        assertEquals(Collections.singletonList("\u00a77Rank: Gold"), item.getDescription());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageStorage;
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class LiveTextTest {
+
+    private static final UUID PLAYER_ID = UUID.randomUUID();
+
+    private LanguageStorage languageStorage;
+    private final List<String> pushed = new ArrayList<>();
+    private LiveText liveText;
+
+    @Before
+    public void setUp() {
+        languageStorage = new LanguageStorage("en");
+        languageStorage.setLanguages(Collections.singletonList(new Language("en",
+                Collections.singletonMap("coins", "Coins: %coins%"))));
+        liveText = new LiveText(languageStorage, Arrays.asList(new Translation(languageStorage, "coins")),
+                (player, line, text) -> pushed.add(text));
+    }
+
+    @Test
+    public void unchangedLinesAreNotPushedAgain() {
+        Player player = player();
+
+        assertEquals(1, liveText.update(player, "%coins%", "5"));
+        assertEquals(0, liveText.update(player, "%coins%", "5"));
+        assertEquals(1, liveText.update(player, "%coins%", "6"));
+        assertEquals(Arrays.asList("Coins: 5", "Coins: 6"), pushed);
+        assertEquals(1, liveText.getSkippedRenders());
+    }
+
+    @Test
+    public void playersJoiningAgainStartWithAFreshOutput() {
+        liveText.update(player(), "%coins%", "5");
+
+        // A player joining again gets a new player object with the same unique id
+        assertEquals(1, liveText.update(player(), "%coins%", "5"));
+        assertEquals(Arrays.asList("Coins: 5", "Coins: 5"), pushed);
+    }
+
+    @Test
+    public void invalidatedPlayersArePushedAgain() {
+        Player player = player();
+        liveText.update(player, "%coins%", "5");
+
+        liveText.invalidate(player);
+        assertEquals(1, liveText.update(player, "%coins%", "5"));
+    }
+
+    private static Player player() {
+        return (Player) Proxy.newProxyInstance(LiveTextTest.class.getClassLoader(), new Class<?>[]{Player.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getLocale":
+                            return "en_us";
+                        case "getUniqueId":
+                            return PLAYER_ID;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
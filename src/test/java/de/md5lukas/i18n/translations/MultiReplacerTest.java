@@ -0,0 +1,129 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MultiReplacerTest {
+
+    @Test
+    public void longestTargetAtTheSamePositionWins() {
+        assertEquals("[ab]c", replace("abc", "a", "[a]", "ab", "[ab]"));
+        assertEquals("[ab]c", replace("abc", "ab", "[ab]", "a", "[a]"));
+    }
+
+    @Test
+    public void leftmostTargetWinsOverLongerOverlappingTarget() {
+        assertEquals("[ab]cd", replace("abcd", "ab", "[ab]", "bcd", "[bcd]"));
+        assertEquals("a[bcd]", replace("abcd", "abce", "[abce]", "bcd", "[bcd]"));
+        assertEquals("x[b]d", replace("xbd", "abc", "[abc]", "b", "[b]"));
+    }
+
+    @Test
+    public void suffixOfAPartialMatchIsFound() {
+        assertEquals("a[bc]e", replace("abce", "abcd", "[abcd]", "bc", "[bc]"));
+        assertEquals("a[b]d", replace("abd", "b", "[b]", "abc", "[abc]"));
+    }
+
+    @Test
+    public void firstReplacementOfADuplicateTargetWins() {
+        assertEquals("1 1", replace("a a", "a", "1", "a", "2"));
+    }
+
+    @Test
+    public void emptyTargetsAreIgnored() {
+        assertEquals("x1x", replace("xax", "", "empty", "a", "1"));
+        assertEquals("xax", replace("xax", "", "empty"));
+    }
+
+    @Test
+    public void replacementsAreNotScannedAgain() {
+        assertEquals("ba", replace("ab", "a", "b", "b", "a"));
+        assertEquals("aa", replace("a", "a", "aa"));
+    }
+
+    @Test
+    public void stringWithoutTargetsIsReturnedAsItIs() {
+        String string = "nothing to replace";
+        assertSame(string, replace(string, "%name%", "Steve"));
+    }
+
+    @Test
+    public void nonAsciiTargetsAreReplaced() {
+        assertEquals("Gr\u00fc\u00dfe, Steve \u2764", replace("Gr\u00fc\u00dfe, %n\u00e4me% \u2665", "%n\u00e4me%", "Steve", "\u2665", "\u2764"));
+        assertEquals("\u00e4x\u00e4", replace("\u00e4\u00f6\u00e4", "\u00f6", "x"));
+    }
+
+    @Test
+    public void matchesTheNaiveReplacement() {
+        Random random = new Random(42);
+        for (int run = 0; run < 2000; run++) {
+            String[] targetsAndReplacements = new String[2 * (1 + random.nextInt(5))];
+            for (int index = 0; index < targetsAndReplacements.length; index += 2) {
+                targetsAndReplacements[index] = randomString(random, random.nextInt(4));
+                targetsAndReplacements[index + 1] = "<" + index / 2 + ">";
+            }
+            String string = randomString(random, random.nextInt(20));
+
+            assertEquals(string + " with " + String.join(", ", targetsAndReplacements),
+                    naiveReplace(string, targetsAndReplacements), replace(string, targetsAndReplacements));
+        }
+    }
+
+    private static String replace(String string, String... targetsAndReplacements) {
+        return MultiReplacer.forTargets(targetsAndReplacements).replace(string, targetsAndReplacements);
+    }
+
+    /**
+     * Replaces the longest target at every position from left to right, preferring the first of duplicated targets
+     */
+    private static String naiveReplace(String string, String[] targetsAndReplacements) {
+        StringBuilder builder = new StringBuilder();
+        int index = 0;
+        while (index < string.length()) {
+            int pair = -1;
+            for (int target = 0; target < targetsAndReplacements.length; target += 2) {
+                String candidate = targetsAndReplacements[target];
+                if (!candidate.isEmpty() && string.startsWith(candidate, index)
+                        && (pair == -1 || candidate.length() > targetsAndReplacements[pair].length()))
+                    pair = target;
+            }
+            if (pair == -1) {
+                builder.append(string.charAt(index++));
+            } else {
+                builder.append(targetsAndReplacements[pair + 1]);
+                index += targetsAndReplacements[pair].length();
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String randomString(Random random, int length) {
+        // A small alphabet with a character outside of ASCII makes overlapping targets likely
+        char[] chars = new char[length];
+        for (int index = 0; index < length; index++)
+            chars[index] = "ab\u00e4".charAt(random.nextInt(3));
+        return new String(chars);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import de.md5lukas.i18n.language.MessageTemplate;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+public class StringHelperTest {
+
+    @Test
+    public void typedPlaceholdersAreFormattedNextToFreeFormTargets() {
+        MessageTemplate template = MessageTemplate.compile("&a{player} has %coins,number% coins");
+
+        assertEquals("\u00a7aSteve has 1,234,567 coins",
+                StringHelper.render(template, Locale.US, ColorCodeSettings.DEFAULT, "{player}", "Steve", "%coins%", "1234567"));
+        assertEquals("\u00a7aSteve has 1.234.567 coins",
+                StringHelper.render(template, Locale.GERMANY, ColorCodeSettings.DEFAULT, "{player}", "Steve", "%coins%", "1234567"));
+    }
+
+    @Test
+    public void freeFormReplacementsFollowTheColorSettings() {
+        MessageTemplate template = MessageTemplate.compile("&a{player}: %message%");
+
+        assertEquals("\u00a7a\u00a7cSteve: \u00a7eHi", StringHelper.render(template, Locale.ROOT, new ColorCodeSettings(),
+                "{player}", "&cSteve", "%message%", "&eHi"));
+        assertEquals("\u00a7a&cSteve: &eHi", StringHelper.render(template, Locale.ROOT, new ColorCodeSettings().setColorReplacements(false),
+                "{player}", "&cSteve", "%message%", "&eHi"));
+        assertEquals("&a&cSteve: &eHi", StringHelper.render(template, Locale.ROOT, new ColorCodeSettings().setEnabled(false),
+                "{player}", "&cSteve", "%message%", "&eHi"));
+    }
+
+    @Test
+    public void freeFormTargetsAreReplacedInEveryLine() {
+        MessageTemplate template = MessageTemplate.compile("{rank}\n%count,plural,one{# kill} other{# kills}%\n\n");
+
+        assertEquals(Arrays.asList("Gold", "3 kills"), StringHelper.renderLines(template, Locale.ENGLISH, new ColorCodeSettings(),
+                "{rank}", "Gold", "%count%", "3"));
+    }
+
+    @Test
+    public void replacementsContainingOtherTargetsAreNotReplacedAgain() {
+        MessageTemplate template = MessageTemplate.compile("%player% paid {0} coins");
+
+        assertEquals("{0} paid x coins", StringHelper.render(template, Locale.ROOT, ColorCodeSettings.DEFAULT,
+                "%player%", "{0}", "{0}", "x"));
+        assertEquals("%player% paid x coins", StringHelper.render(template, Locale.ROOT, ColorCodeSettings.DEFAULT,
+                "{0}", "x", "%player%", "%player%"));
+    }
+
+    @Test
+    public void freeFormTargetsWithColorCodesMatchTheSource() {
+        MessageTemplate template = MessageTemplate.compile("&6[rank] %player%");
+
+        assertEquals("Gold Steve", StringHelper.render(template, Locale.ROOT, ColorCodeSettings.DEFAULT,
+                "&6[rank]", "Gold", "%player%", "Steve"));
+    }
+
+    @Test
+    public void builderReceivesTheSameText() {
+        MessageTemplate template = MessageTemplate.compile("{player} has %coins,number% coins");
+        StringBuilder builder = new StringBuilder("> ");
+        StringHelper.renderTo(builder, template, Locale.US, ColorCodeSettings.DEFAULT, "{player}", "Steve", "%coins%", "1500");
+
+        assertEquals("> Steve has 1,500 coins", builder.toString());
+    }
+}
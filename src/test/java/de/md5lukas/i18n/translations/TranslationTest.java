@@ -0,0 +1,196 @@
+/*
+ *     A simple utility designed for spigot to make multi-language support easy
+ *     Copyright (C) 2020 Lukas Planz
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.md5lukas.i18n.translations;
+
+import de.md5lukas.i18n.language.Language;
+import de.md5lukas.i18n.language.LanguageStorage;
+import de.md5lukas.i18n.language.TemplateArguments;
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TranslationTest {
+
+    private LanguageStorage languageStorage;
+    private Language english, german;
+
+    @Before
+    public void setUp() {
+        languageStorage = new LanguageStorage("en");
+        languageStorage.setLanguages(Arrays.asList(new Language("en", Collections.singletonMap("greeting", "&aHello")),
+                new Language("de", Collections.singletonMap("greeting", "&aHallo"))));
+        // Only languages published by the language store are cached
+        english = languageStorage.getLanguage("en");
+        german = languageStorage.getLanguage("de");
+    }
+
+    @Test
+    public void rendersAreCachedPerLanguage() {
+        Translation translation = new Translation(languageStorage, "greeting");
+        String englishText = translation.render(english), germanText = translation.render(german);
+
+        assertEquals("\u00a7aHello", englishText);
+        assertEquals("\u00a7aHallo", germanText);
+        assertSame(englishText, translation.render(english));
+        assertSame(germanText, translation.render(german));
+    }
+
+    @Test
+    public void changedColorSettingsInvalidateTheCache() {
+        ColorCodeSettings settings = new ColorCodeSettings();
+        Translation translation = new Translation(languageStorage, "greeting", settings);
+        String colored = translation.render(english);
+
+        settings.setEnabled(false);
+        assertNotSame(colored, translation.render(english));
+        assertEquals("&aHello", translation.render(english));
+    }
+
+    @Test
+    public void reloadedLanguagesInvalidateTheCache() {
+        Translation translation = new Translation(languageStorage, "greeting");
+        translation.render(english);
+
+        languageStorage.setLanguages(Arrays.asList(new Language("en", Collections.singletonMap("greeting", "&aHi")), german));
+        assertEquals("\u00a7aHi", translation.render(languageStorage.getLanguage("en")));
+    }
+
+    @Test
+    public void changedFallbackLanguagesInvalidateTheCache() {
+        Translation translation = new Translation(languageStorage, "farewell");
+        languageStorage.setLanguages(Arrays.asList(new Language("en", Collections.singletonMap("farewell", "&aBye")),
+                new Language("de", Collections.singletonMap("greeting", "&aHallo"))));
+        assertEquals("\u00a7aBye", translation.render(languageStorage.getLanguage("de")));
+
+        languageStorage.setDefaultLanguage("de");
+        assertEquals("farewell", translation.render(languageStorage.getLanguage("de")));
+    }
+
+    @Test
+    public void jsonIsCachedPerLanguage() {
+        Translation translation = new Translation(languageStorage, "greeting");
+        Player englishPlayer = player("en_us"), germanPlayer = player("de_de");
+
+        assertSame(translation.getAsJson(englishPlayer), translation.getAsJson(englishPlayer));
+        assertNotEquals(translation.getAsJson(englishPlayer), translation.getAsJson(germanPlayer));
+    }
+
+    @Test
+    public void handedOutComponentsAreCopies() {
+        Translation translation = new Translation(languageStorage, "greeting");
+        List<BaseComponent[]> sent = new ArrayList<>();
+        Player player = player("en_us", sent);
+        BaseComponent[] components = translation.getAsComponents(player);
+
+        assertNotSame(components, translation.getAsComponents(player));
+        components[0].setColor(ChatColor.RED);
+        components[0].addExtra("!");
+        translation.sendComponents(player);
+        assertEquals(ChatColor.GREEN, sent.get(0)[0].getColor());
+        assertEquals("Hello", BaseComponent.toPlainText(sent.get(0)));
+        assertEquals("Hello", BaseComponent.toPlainText(translation.getAsComponents(player)));
+    }
+
+    @Test
+    public void repeatedBroadcastsReuseTheirComponents() {
+        languageStorage.setLanguages(Arrays.asList(new Language("en", Collections.singletonMap("countdown", "&6Restart in %time%")),
+                new Language("de", Collections.singletonMap("countdown", "&6Neustart in %time%"))));
+        Translation translation = new Translation(languageStorage, "countdown");
+        List<BaseComponent[]> sent = new ArrayList<>();
+        List<Player> players = Arrays.asList(player("en_us", sent), player("de_de", sent), player("en_gb", sent));
+
+        translation.broadcastComponents(players, "%time%", "5");
+        translation.broadcastComponents(players, "%time%", "5");
+        translation.broadcastComponents(players, "%time%", "4");
+
+        assertEquals(9, sent.size());
+        assertSame(sent.get(0), sent.get(2));
+        assertSame(sent.get(0), sent.get(3));
+        assertSame(sent.get(1), sent.get(4));
+        assertNotSame(sent.get(0), sent.get(6));
+        assertEquals("Restart in 4", BaseComponent.toPlainText(sent.get(6)));
+        assertEquals("Neustart in 4", BaseComponent.toPlainText(sent.get(7)));
+    }
+
+    @Test
+    public void componentsWithReplacementsAreNotShared() {
+        Translation translation = new Translation(languageStorage, "greeting");
+        Player player = player("en_us");
+
+        assertNotSame(translation.getAsComponents(player, "%name%", "Steve"), translation.getAsComponents(player, "%name%", "Steve"));
+    }
+
+    @Test
+    public void argumentsAreCompletedByProviders() {
+        languageStorage.setLanguages(Arrays.asList(new Language("en", Collections.singletonMap("balance", "%player%: %coins,number%")),
+                german));
+        languageStorage.registerPlaceholder("player", sender -> "Steve");
+        Translation translation = new Translation(languageStorage, "balance");
+        TemplateArguments arguments = new TemplateArguments().set("%coins%", 1500L);
+
+        assertEquals("Steve: 1,500", translation.renderTo(new StringBuilder(), player("en_us"), arguments).toString());
+        assertEquals("Alex: 1,500", translation.renderTo(new StringBuilder(), player("en_us"),
+                new TemplateArguments().setAll(arguments).set("%player%", "Alex")).toString());
+        // The provided value must not have been added to the arguments of the caller
+        StringBuilder unresolved = new StringBuilder();
+        languageStorage.getLanguage("en").getTemplate("balance").renderTo(unresolved, arguments);
+        assertEquals("%player%: 1,500", unresolved.toString());
+    }
+
+    private static Player player(String locale) {
+        return player(locale, new ArrayList<>());
+    }
+
+    private static Player player(String locale, List<BaseComponent[]> sent) {
+        Player.Spigot spigot = new Player.Spigot() {
+            @Override
+            public void sendMessage(BaseComponent... components) {
+                sent.add(components);
+            }
+        };
+        return (Player) Proxy.newProxyInstance(TranslationTest.class.getClassLoader(), new Class<?>[]{Player.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getLocale":
+                            return locale;
+                        case "spigot":
+                            return spigot;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}